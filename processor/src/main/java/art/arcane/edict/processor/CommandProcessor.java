@@ -0,0 +1,218 @@
+package art.arcane.edict.processor;
+
+import art.arcane.edict.api.Command;
+import art.arcane.edict.api.CommandDescriptor;
+import art.arcane.edict.api.Param;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor that writes a {@link CommandDescriptor} for each class annotated by {@link Command}.<br>
+ * The descriptor lists the command methods, the source names of their parameters and the subcategory fields of the class,
+ * so Edict can look them up directly instead of scanning the class with reflection at startup.
+ * Classes that the generated descriptor cannot refer to, such as private nested classes, are skipped and keep using reflection.
+ * Command methods with parameters that are not annotated by {@link Param} are reported as errors.
+ */
+@SupportedAnnotationTypes("art.arcane.edict.api.Command")
+public final class CommandProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(Command.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                describe((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the descriptor of a command class.
+     * Classes that the descriptor could not reference, or whose command parameters it could not reference, are silently left to the reflection scan.
+     * @param type the class
+     */
+    private void describe(TypeElement type) {
+        if (!accessible(type)) {
+            return;
+        }
+
+        // Collect members
+        List<ExecutableElement> methods = new ArrayList<>();
+        List<VariableElement> categories = new ArrayList<>();
+        boolean valid = true;
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.METHOD && member.getAnnotation(Command.class) != null) {
+                ExecutableElement method = (ExecutableElement) member;
+                for (VariableElement parameter : method.getParameters()) {
+                    if (parameter.getAnnotation(Param.class) == null) {
+                        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Param annotation missing on parameter of command method", parameter);
+                        valid = false;
+                    } else if (!accessible(processingEnv.getTypeUtils().erasure(parameter.asType()), type)) {
+                        return;
+                    }
+                }
+                methods.add(method);
+            } else if (member.getKind() == ElementKind.FIELD) {
+                Element fieldType = processingEnv.getTypeUtils().asElement(member.asType());
+                if (fieldType != null && fieldType.getAnnotation(Command.class) != null) {
+                    categories.add((VariableElement) member);
+                }
+            }
+        }
+        if (!valid) {
+            return;
+        }
+
+        // Write source
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + CommandDescriptor.SUFFIX;
+        String className = type.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(CommandProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(simpleName).append(" implements ").append(CommandDescriptor.class.getName()).append(" {\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public java.lang.reflect.Method[] methods() throws ReflectiveOperationException {\n");
+        source.append("        return new java.lang.reflect.Method[]{\n");
+        for (ExecutableElement method : methods) {
+            source.append("                ").append(className).append(".class.getDeclaredMethod(").append(literal(method.getSimpleName().toString()));
+            for (VariableElement parameter : method.getParameters()) {
+                source.append(", ").append(typeName(processingEnv.getTypeUtils().erasure(parameter.asType()))).append(".class");
+            }
+            source.append("),\n");
+        }
+        source.append("        };\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public String[][] parameterNames() {\n");
+        source.append("        return new String[][]{\n");
+        for (ExecutableElement method : methods) {
+            source.append("                {");
+            List<? extends VariableElement> parameters = method.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                source.append(i == 0 ? "" : ", ").append(literal(parameters.get(i).getSimpleName().toString()));
+            }
+            source.append("},\n");
+        }
+        source.append("        };\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public java.lang.reflect.Field[] categories() throws ReflectiveOperationException {\n");
+        source.append("        return new java.lang.reflect.Field[]{\n");
+        for (VariableElement field : categories) {
+            source.append("                ").append(className).append(".class.getDeclaredField(").append(literal(field.getSimpleName().toString())).append("),\n");
+        }
+        source.append("        };\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + simpleName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write command descriptor: " + e, type);
+        }
+    }
+
+    /**
+     * Whether a type can be referred to from code in its own package.
+     * @param type the type
+     * @return true if the type is not local or anonymous, and neither it nor any type enclosing it is private
+     */
+    private boolean accessible(TypeElement type) {
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            return false;
+        }
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether an erased type can be referred to from code in the package of a command class.
+     * @param type the type
+     * @param from the command class
+     * @return true if it is a primitive, or an array or class that is accessible from that package
+     */
+    private boolean accessible(TypeMirror type, TypeElement from) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return accessible(((ArrayType) type).getComponentType(), from);
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        PackageElement own = processingEnv.getElementUtils().getPackageOf(from);
+        for (Element e = element; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(e).equals(own)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The source name of an erased type, for a class literal.
+     * @param type the type
+     * @return the name
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * A Java string literal.
+     * @param value the value
+     * @return the literal
+     */
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
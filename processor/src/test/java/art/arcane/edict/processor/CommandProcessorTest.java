@@ -0,0 +1,113 @@
+package art.arcane.edict.processor;
+
+import art.arcane.edict.api.CommandDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandProcessorTest {
+
+    @Test
+    void describe() throws Exception {
+        Path out = compile(
+                "package test;",
+                "import art.arcane.edict.api.Command;",
+                "import art.arcane.edict.api.Param;",
+                "@Command(description = \"root\")",
+                "public class Root {",
+                "    Sub sub;",
+                "    String notACategory;",
+                "    @Command(description = \"b\") public void beta(@Param int count, @Param(name = \"who\") String[] names) {}",
+                "    @Command(description = \"a\") void alpha() {}",
+                "    public void notACommand(int x) {}",
+                "    @Command(description = \"sub\") public static class Sub {",
+                "        @Command(description = \"c\") public void gamma(@Param java.util.List<String> values) {}",
+                "    }",
+                "    @Command(description = \"hidden\") private static class Hidden {}",
+                "}"
+        );
+        assertTrue(Files.exists(out.resolve("test/Root$EdictDescriptor.class")));
+        assertTrue(Files.exists(out.resolve("test/Root$Sub$EdictDescriptor.class")));
+        assertFalse(Files.exists(out.resolve("test/Root$Hidden$EdictDescriptor.class")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())) {
+            CommandDescriptor root = CommandDescriptor.of(loader.loadClass("test.Root"));
+            assertNotNull(root);
+            assertEquals(List.of("beta", "alpha"), Arrays.stream(root.methods()).map(Method::getName).toList());
+            assertEquals(List.of(List.of("count", "names"), List.of()), Arrays.stream(root.parameterNames()).map(List::of).toList());
+            assertEquals(List.of("sub"), Arrays.stream(root.categories()).map(Field::getName).toList());
+
+            CommandDescriptor sub = CommandDescriptor.of(loader.loadClass("test.Root$Sub"));
+            assertNotNull(sub);
+            assertEquals(List.class, sub.methods()[0].getParameterTypes()[0]);
+
+            assertNull(CommandDescriptor.of(loader.loadClass("test.Root$Hidden")));
+        }
+    }
+
+    @Test
+    void missingParam() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(run(compiler, diagnostics, Files.createTempDirectory("edict-processor"),
+                "package test;",
+                "import art.arcane.edict.api.Command;",
+                "@Command(description = \"root\")",
+                "public class Broken {",
+                "    @Command(description = \"b\") public void beta(int count) {}",
+                "}"
+        ));
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(d -> d.getMessage(null).contains("@Param annotation missing")));
+    }
+
+    /**
+     * Compile a source file with the processor.
+     * @param lines the lines of the source file
+     * @return the output directory
+     */
+    private static @NotNull Path compile(@NotNull String... lines) throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Path out = Files.createTempDirectory("edict-processor");
+        assertTrue(run(ToolProvider.getSystemJavaCompiler(), diagnostics, out, lines), diagnostics.getDiagnostics().toString());
+        return out;
+    }
+
+    /**
+     * Compile a source file with the processor.
+     * @param compiler the compiler
+     * @param diagnostics the diagnostics to report to
+     * @param out the output directory
+     * @param lines the lines of the source file
+     * @return true if compilation succeeded
+     */
+    private static boolean run(@NotNull JavaCompiler compiler, @NotNull DiagnosticCollector<JavaFileObject> diagnostics, @NotNull Path out, @NotNull String... lines) throws IOException {
+        Path sources = Files.createTempDirectory("edict-processor-sources");
+        String source = String.join("\n", lines);
+        String name = source.substring(source.indexOf("public class ") + 13, source.indexOf(" {"));
+        Path file = Files.createDirectories(sources.resolve("test")).resolve(name + ".java");
+        Files.writeString(file, source);
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    List.of("-d", out.toString(), "-classpath", System.getProperty("java.class.path")),
+                    null, files.getJavaFileObjects(file));
+            task.setProcessors(List.of(new CommandProcessor()));
+            return task.call();
+        }
+    }
+}
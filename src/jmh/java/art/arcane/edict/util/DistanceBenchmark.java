@@ -0,0 +1,51 @@
+package art.arcane.edict.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the matrix and bit-parallel implementations of the {@link BKTreeIndexer} distance metric.<br>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+    @Param({"setting", "parameterhandlers", "configurationreloadcommandwithaveryverylongname"})
+    public String name;
+
+    public String input;
+
+    public BKTreeIndexer.BitPattern pattern;
+
+    @Setup
+    public void setUp() {
+        input = new StringBuilder(name).reverse().substring(0, Math.max(2, name.length() - 2));
+        pattern = new BKTreeIndexer.BitPattern(name);
+    }
+
+    @Benchmark
+    public int matrix() {
+        return BKTreeIndexer.DAMERAU_LEVENSHTEIN_DISTANCE.distance(name, input);
+    }
+
+    @Benchmark
+    public int bounded() {
+        return BKTreeIndexer.damerauLevenshteinDistance(name, input, 2);
+    }
+
+    @Benchmark
+    public int bitParallel() {
+        return pattern.distance(input, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int bitParallelBounded() {
+        return pattern.distance(input, 2);
+    }
+}
@@ -2,8 +2,15 @@ package art.arcane.edict;
 
 import art.arcane.edict.api.Command;
 import art.arcane.edict.completables.CompletableCommandsRegistry;
+import art.arcane.edict.context.CommandResultContext;
 import art.arcane.edict.context.SystemContext;
 import art.arcane.edict.context.UserContext;
+import art.arcane.edict.execution.AdmissionController;
+import art.arcane.edict.execution.CommandExecutors;
+import art.arcane.edict.execution.CommandHandle;
+import art.arcane.edict.execution.CommandResult;
+import art.arcane.edict.execution.SuggestionService;
+import art.arcane.edict.execution.UserLanes;
 import art.arcane.edict.handler.ContextHandler;
 import art.arcane.edict.handler.ContextHandlers;
 import art.arcane.edict.handler.ParameterHandler;
@@ -16,6 +23,7 @@ import art.arcane.edict.user.SystemUser;
 import art.arcane.edict.user.User;
 import art.arcane.edict.util.BKTreeIndexer;
 import art.arcane.edict.util.EDictionary;
+import art.arcane.edict.util.ResolutionCache;
 import art.arcane.edict.parser.ParameterParser;
 import art.arcane.edict.virtual.VClass;
 import art.arcane.edict.virtual.VCommandable;
@@ -28,10 +36,17 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /*
     TODO: Command structure in README.
@@ -69,8 +84,14 @@ import java.util.function.Consumer;
  *      By default, uses {@link EDictionary#EDictionary()}</li>
  *  <li>{@link EdictBuilder#syncRunner(Consumer)} how to run commands sync<br>
  *      By default, uses {@link Runnable#run()} (async)</li>
+ *  <li>{@link EdictBuilder#executor(Executor)} the executor to run commands on<br>
+ *      By default, uses {@link CommandExecutors#defaultExecutor()} (virtual threads on Java 21+, a bounded pool otherwise)</li>
+ *  <li>{@link EdictBuilder#suggestionExecutor(Executor)} the executor to compute suggestions on<br>
+ *      By default, uses {@link CommandExecutors#suggestionExecutor()} (a small pool shared by all instances)</li>
+ *  <li>{@link EdictBuilder#serialPerUser(boolean)} whether commands of the same user run one at a time, in order<br>
+ *      By default, {@code false} (all commands run in parallel)</li>
  *  <li>{@link EdictBuilder#systemUser(SystemUser)} system user to write debug/info/warnings to<br>
- *      By default, uses {@link SystemUser#SystemUser()} (System.out)</li>
+ *      By default, uses {@link SystemUser#SystemUser()} (System.out, without debug messages)</li>
  *  <li>{@link EdictBuilder#permissionFactory(BiFunction)} permission factory to create permissions<br>
  *      By default, uses {@link #defaultPermissionFactory}</li>
  *  <li>{@link EdictBuilder#parameterHandler(ParameterHandler)} / {@link EdictBuilder#parameterHandlers(ParameterHandlers)} handlers for custom parameter types<br>
@@ -80,9 +101,9 @@ import java.util.function.Consumer;
  * </ul>
  * <h2>Running</h2>
  * To parse commands through the system after initializing it, use {@link #command(String, User)}.
+ * To get a {@link CommandResult} to compose further work on, use {@link #commandAsync(String, User)}.
  */
 @SuppressWarnings("unused")
-@Builder(builderMethodName = "")
 public class Edict {
 
     /**
@@ -99,6 +120,16 @@ public class Edict {
             new StringHandler()
     ));
 
+    /**
+     * Message sent to users whose input was rejected by the {@link #executor}.
+     */
+    private static final StringMessage BUSY_MESSAGE = new StringMessage("The command system is busy. Please try again in a moment.");
+
+    /**
+     * Message sent to users whose input was rejected by the {@link #admission} controller.
+     */
+    private static final StringMessage RATE_LIMITED_MESSAGE = new StringMessage("You are sending commands too quickly. Please slow down.");
+
     /**
      * The default permission factory. Simply sets the parent as the parent and the toString method as the input string.
      */
@@ -117,60 +148,87 @@ public class Edict {
     /**
      * Command root instances.
      */
-    @Singular
     private List<Object> roots;
 
     /**
      * System user.
      */
-    @Builder.Default
-    private SystemUser systemUser = new SystemUser();
+    private SystemUser systemUser;
 
     /**
      * Sync runner.
      */
-    @Builder.Default
-    private Consumer<Runnable> syncRunner = Runnable::run;
+    private Consumer<Runnable> syncRunner;
+
+    /**
+     * Executor for commands that are not forced to run sync.
+     */
+    private Executor executor;
+
+    /**
+     * Executor for suggestions that are not forced to run sync.
+     */
+    private Executor suggestionExecutor;
+
+    /**
+     * Whether commands of the same user run one at a time, in order, on a {@link UserLanes lane} of the {@link #executor}.
+     */
+    private boolean serialPerUser;
 
     /**
      * Settings.
      */
-    @Builder.Default
-    private EDictionary settings = new EDictionary();
+    private EDictionary settings;
 
     /**
      * Permission factory
      */
-    @Builder.Default
-    private BiFunction<@Nullable Permission, @NotNull String, @NotNull Permission> permissionFactory = defaultPermissionFactory;
+    private BiFunction<@Nullable Permission, @NotNull String, @NotNull Permission> permissionFactory;
 
     /**
      * Handler registry.
      */
-    @Builder.Default
-    private ParameterHandlers parameterHandlers = new ParameterHandlers(defaultParameterHandlers);
+    private ParameterHandlers parameterHandlers;
 
     /**
      * Context handler registry.
      */
-    @Builder.Default
-    private ContextHandlers contextHandlers = new ContextHandlers();
+    private ContextHandlers contextHandlers;
 
     /**
      * Indent for {@link #networkString()}.
      */
-    @Builder.Default
-    private String networkStringIndent = "  ";
+    private String networkStringIndent;
 
     /**
      * Root commands
      */
-    private final List<VCommandable> rootCommands = new ArrayList<>();
+    private final List<VCommandable> rootCommands = new CopyOnWriteArrayList<>();
 
     /**
      * System indexer.
      */
-    private final BKTreeIndexer indexer = new BKTreeIndexer();
+    private final BKTreeIndexer indexer;
+
+    /**
+     * Cache of fuzzy command resolution results, shared by all indexers of this system.
+     */
+    private final ResolutionCache resolutionCache;
+
+    /**
+     * Per-user lanes for commands, or {@code null} if not {@link #serialPerUser}.
+     */
+    private final @Nullable UserLanes lanes;
+
+    /**
+     * Per-user rate limiting, configured in the {@link #settings}.
+     */
+    private final AdmissionController admission;
+
+    /**
+     * Coalesces suggestion requests per user on the {@link #suggestionExecutor}.
+     */
+    private final SuggestionService suggestions;
 
     /**
      * Completable commands' registry.
@@ -196,16 +254,27 @@ public class Edict {
      * Builder for Edict.
      */
     public static class EdictBuilder {
+        // Defaults, as listed in the documentation of Edict
+        private SystemUser systemUser = new SystemUser();
+        private Consumer<Runnable> syncRunner = Runnable::run;
+        private Executor executor = CommandExecutors.defaultExecutor();
+        private Executor suggestionExecutor = CommandExecutors.suggestionExecutor();
+        private EDictionary settings = new EDictionary();
+        private BiFunction<@Nullable Permission, @NotNull String, @NotNull Permission> permissionFactory = defaultPermissionFactory;
+        private ParameterHandlers parameterHandlers = new ParameterHandlers(defaultParameterHandlers);
+        private ContextHandlers contextHandlers = new ContextHandlers();
+        private String networkStringIndent = "  ";
+
         /**
          * Register a new {@link ParameterHandler}. If none were registered before this, it also loads the {@link Edict#defaultParameterHandlers}.
          * @param handler the handler to register
          * @return this
          */
         public EdictBuilder parameterHandler(ParameterHandler<?> handler) {
-            if (parameterHandlers$value == null) {
-                parameterHandlers(new ParameterHandlers(defaultParameterHandlers));
+            if (parameterHandlers == null) {
+                parameterHandlers = new ParameterHandlers(defaultParameterHandlers);
             }
-            parameterHandlers$value.add(handler);
+            parameterHandlers.add(handler);
             return this;
         }
 
@@ -215,10 +284,10 @@ public class Edict {
          * @return this
          */
         public EdictBuilder contextHandler(ContextHandler<?> handler) {
-            if (contextHandlers$value == null) {
-                contextHandlers(new ContextHandlers());
+            if (contextHandlers == null) {
+                contextHandlers = new ContextHandlers();
             }
-            contextHandlers$value.add(handler);
+            contextHandlers.add(handler);
             return this;
         }
     }
@@ -228,6 +297,9 @@ public class Edict {
      * @param roots the root command classes
      * @param systemUser the user to send system messages to
      * @param syncRunner the consumer that takes runnable objects that must be run sync
+     * @param executor the executor to run commands on
+     * @param suggestionExecutor the executor to compute suggestions on
+     * @param serialPerUser whether commands of the same user run one at a time, in order
      * @param settings the settings
      * @param permissionFactory factory to make permissions
      * @param parameterHandlers parameter handlers
@@ -237,29 +309,43 @@ public class Edict {
      */
     @Builder
     public Edict(
-            @NotNull List<Object> roots,
+            @Singular @NotNull List<Object> roots,
             @NotNull SystemUser systemUser,
             @NotNull Consumer<Runnable> syncRunner,
+            @NotNull Executor executor,
+            @NotNull Executor suggestionExecutor,
+            boolean serialPerUser,
             @NotNull EDictionary settings,
             @NotNull BiFunction<@Nullable Permission, @NotNull String, @NotNull Permission> permissionFactory,
             @NotNull ParameterHandlers parameterHandlers,
             @NotNull ContextHandlers contextHandlers,
             @NotNull String networkStringIndent
     ) throws NullPointerException {
-        this.roots = roots;
+        this.roots = new CopyOnWriteArrayList<>(roots);
         this.systemUser = systemUser;
         this.syncRunner = syncRunner;
+        this.executor = executor;
+        this.suggestionExecutor = suggestionExecutor;
+        this.suggestions = new SuggestionService(suggestionExecutor, this::suggestions, settings);
+        this.serialPerUser = serialPerUser;
+        this.lanes = serialPerUser ? new UserLanes(executor) : null;
+        this.admission = new AdmissionController(settings, executor);
         this.settings = settings;
         this.permissionFactory = permissionFactory;
         this.parameterHandlers = parameterHandlers;
         this.contextHandlers = contextHandlers;
         this.networkStringIndent = networkStringIndent;
+        this.resolutionCache = new ResolutionCache(settings.resolutionCacheSize);
+        this.indexer = new BKTreeIndexer(settings, resolutionCache);
 
         // Command Roots
-        for (Object root : roots) {
-            VCommandable vRoot = VClass.fromInstance(root, null, this);
+        List<VCommandable> vRoots = VClass.fromInstances(roots, null, this);
+        for (int r = 0; r < roots.size(); r++) {
+            Object root = roots.get(r);
+            VCommandable vRoot = vRoots.get(r);
             if (vRoot == null) {
-                w(new StringMessage("Could not register root category: " + root.getClass().getSimpleName() + " due to circular reference!"));
+                w(() -> new StringMessage("Could not register root category: " + root.getClass().getSimpleName() + " due to circular reference!"));
+                this.roots.remove(root);
                 continue;
             }
             rootCommands.add(vRoot);
@@ -269,7 +355,55 @@ public class Edict {
         indexer.addAll(rootCommands);
 
         // Print
-        i(new StringMessage(networkString()));
+        i(() -> new StringMessage(networkString()));
+    }
+
+    /**
+     * Register a command root at runtime. Only the root indexer is updated, and commands in progress keep using the tree they already resolved.
+     * @param root the root command class instance
+     * @return the new root command, or {@code null} if it has no commands or would introduce a circular reference
+     * @throws NullPointerException if the {@link ParameterHandler} or {@link ContextHandler} for any of the parameters of the root or any of its children is not registered
+     */
+    final public @Nullable VCommandable register(@NotNull Object root) throws NullPointerException {
+        VCommandable vRoot = VClass.fromInstance(root, null, this);
+        if (vRoot == null) {
+            w(() -> new StringMessage("Could not register root category: " + root.getClass().getSimpleName() + " because it has no commands"));
+            return null;
+        }
+        roots.add(root);
+        rootCommands.add(vRoot);
+        indexer.add(vRoot);
+        i(() -> new StringMessage("Registered root category: " + vRoot.name()));
+        return vRoot;
+    }
+
+    /**
+     * Unregister a command root at runtime. Only the root indexer is updated, and commands in progress keep using the tree they already resolved.
+     * @param root the root command class instance, as {@link #register(Object) registered} or passed to the builder
+     * @return true if the root was registered
+     */
+    final public boolean unregister(@NotNull Object root) {
+        List<VCommandable> removed = rootCommands.stream().filter(vRoot -> instanceOf(vRoot) == root).toList();
+        if (removed.isEmpty()) {
+            return false;
+        }
+        indexer.removeAll(removed);
+        rootCommands.removeAll(removed);
+        roots.remove(root);
+        i(() -> new StringMessage("Unregistered root category: " + root.getClass().getSimpleName()));
+        return true;
+    }
+
+    /**
+     * The instance of the class a root command was made from.
+     * @param root the root command
+     * @return the instance, or {@code null} if unknown
+     */
+    private static @Nullable Object instanceOf(@NotNull VCommandable root) {
+        if (root instanceof VClass vClass) {
+            return vClass.instance();
+        }
+        return root instanceof VMethod vMethod && vMethod.parent() != null ? vMethod.parent().instance() : null;
     }
 
     /**
@@ -288,122 +422,401 @@ public class Edict {
      * @param forceSync force the execution of this command in sync (testing)
      */
     final public void command(@NotNull String command, @NotNull User user, boolean forceSync) {
-        i(new StringMessage(user.name() + " sent command: " +  command));
-        Runnable r = () -> {
-
-            final String fCommand = ParameterParser.cleanCommand(command.strip());
+        command(command, user, forceSync, new CommandResult.Builder(command));
+    }
 
-            i(new StringMessage(user.name() + " sent command: " + fCommand));
+    /**
+     * Run a command through the system, without blocking.
+     * @param command the command to run
+     * @param user the user that ran the command
+     * @return a handle completed with the {@link CommandResult} once the command (including any sync invocation) finished,
+     * which can also be used to {@link CommandHandle#cancel(boolean) cancel} the command
+     */
+    final public @NotNull CommandHandle commandAsync(@NotNull String command, @NotNull User user) {
+        CommandResult.Builder result = new CommandResult.Builder(command);
+        command(command, user, false, result);
+        return result.future();
+    }
 
-            List<String> input = List.of(fCommand.split(" "));
+    /**
+     * Run a command through the system.
+     * @param command the command to run
+     * @param user the user that ran the command
+     * @param forceSync force the execution of this command in sync (testing)
+     * @param result the result builder to record the outcome in
+     */
+    private void command(@NotNull String command, @NotNull User user, boolean forceSync, @NotNull CommandResult.Builder result) {
+        long delay = admission.admit(user);
+        if (delay == AdmissionController.REJECTED || (forceSync && delay > 0)) {
+            user.send(RATE_LIMITED_MESSAGE);
+            result.complete(CommandResult.Outcome.RATE_LIMITED);
+            return;
+        }
 
-            // Blank check
-            if (input.isEmpty()) {
-                for (VCommandable root : rootCommands) {
-                    user.send(root.getHelpFor(user));
-                }
+        i(() -> new StringMessage(user.name() + " sent command: " +  command));
+        Runnable r = () -> {
+            result.mark(CommandResult.Stage.QUEUE);
+            if (result.isDone()) {
                 return;
             }
-
-            d(new StringMessage("Running command: " + fCommand));
-
-            // Loop over roots
-            new UserContext().post(user);
-            new SystemContext().post(this);
-
-            // Future
-            CompletableFuture<String> future = completableCommandsRegistry.getCompletableFor(user);
-            if (future != null) {
-                d(new StringMessage(user.name() + " completed command with " + String.join(" ", input)));
-                future.complete(command);
-                return;
+            if (!forceSync) {
+                result.attach(Thread.currentThread());
             }
-
-            for (VCommandable root : indexer.search(input.get(0), getSettings().matchThreshold, (vCommandable -> user.hasPermission(vCommandable.permission())))) {
-                d(new StringMessage("Running root: " + root.name()));
-                if (root.run(input.subList(1, input.size()), user)) {
-                    return;
+            new CommandResultContext().post(result);
+            try {
+                dispatch(command, user, result);
+            } catch (RuntimeException e) {
+                w(() -> new StringMessage("Dispatching '" + command + "' for " + user.name() + " failed due to " + e));
+                result.error(e).outcome(CommandResult.Outcome.FAILED);
+                throw e;
+            } finally {
+                new CommandResultContext().delete();
+                if (!forceSync) {
+                    result.detach();
                 }
+                result.release();
             }
-
-            d(new StringMessage("Could not find suitable command for input: " + fCommand));
-            user.send(new StringMessage("Failed to run any commands for your input. Please try (one of): " + String.join(", ", rootCommands.stream().map(VCommandable::name).toList())));
-
         };
 
+        Runnable onRejected = () -> {
+            user.send(BUSY_MESSAGE);
+            result.complete(CommandResult.Outcome.REJECTED);
+        };
         if (forceSync) {
             d(new StringMessage("Running command in forced sync. Likely for testing purposes."));
             r.run();
+        } else if (delay > 0) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> submitCommand(r, user, onRejected));
         } else {
-            new Thread(r).start();
+            submitCommand(r, user, onRejected);
         }
     }
 
+    /**
+     * Submit a command runnable for execution.<br>
+     * Input that completes a pending option pick of the user skips the lane of the user,
+     * because the command waiting for the pick occupies that lane until it is completed.
+     * @param runnable the runnable to run
+     * @param user the user the runnable is run for
+     * @param onRejected ran (on the calling thread) if the executor rejects the runnable
+     */
+    private void submitCommand(@NotNull Runnable runnable, @NotNull User user, @NotNull Runnable onRejected) {
+        CompletableFuture<String> pick = completableCommandsRegistry.getCompletableFor(user);
+        if (lanes != null && pick != null && !pick.isDone()) {
+            execute(runnable, user, onRejected);
+        } else {
+            executeCommand(runnable, user, onRejected);
+        }
+    }
 
     /**
-     * Get suggestions for a command.
-     * @param command the input to get suggestions for
-     * @param user the user that wants the suggestions
-     * @param suggestionOutput the consumer to send the output to when it is done
-     * @param forceSync force the execution of suggestion retrieval in sync (testing)
+     * Dispatch a command to the command tree, on the current thread.
+     * @param command the command to run
+     * @param user the user that ran the command
+     * @param result the result builder to record the outcome in
      */
-    final public void suggest(@NotNull String command, @NotNull User user, @NotNull Consumer<List<String>> suggestionOutput, boolean forceSync) {
-        i(new StringMessage(user.name() + " wants suggestions for command: " +  command));
-        Runnable r = () -> {
+    private void dispatch(@NotNull String command, @NotNull User user, @NotNull CommandResult.Builder result) {
 
-            final String fCommand = ParameterParser.cleanCommand(command);
+        final String fCommand = ParameterParser.cleanCommand(command.strip());
 
-            List<String> input = List.of(fCommand.split(" "));
+        i(() -> new StringMessage(user.name() + " sent command: " + fCommand));
 
-            // Blank check
-            if (input.isEmpty()) {
-                List<String> primarySuggestions = new ArrayList<>();
-                List<String> secondarySuggestions = new ArrayList<>();
-                for (VCommandable root : rootCommands) {
-                    primarySuggestions.add(root.name());
-                    secondarySuggestions.addAll(root.getAliases());
-                }
-                primarySuggestions.addAll(secondarySuggestions);
-                suggestionOutput.accept(primarySuggestions);
-                return;
+        List<String> input = List.of(fCommand.split(" "));
+        result.mark(CommandResult.Stage.CLEAN);
+
+        // Blank check
+        if (input.isEmpty()) {
+            for (VCommandable root : rootCommands) {
+                user.send(root.getHelpFor(user));
             }
+            result.outcome(CommandResult.Outcome.HELP);
+            return;
+        }
 
-            d(new StringMessage("Suggesting for command: " + fCommand));
+        d(() -> new StringMessage("Running command: " + fCommand));
 
-            // Loop over roots
-            new UserContext().post(user);
-            new SystemContext().post(this);
+        // Loop over roots
+        new UserContext().post(user);
+        new SystemContext().post(this);
 
-            List<String> suggestions = new ArrayList<>();
-            List<VCommandable> roots = indexer.search(input.get(0), getSettings().matchThreshold, (vCommandable -> user.hasPermission(vCommandable.permission())));
+        // Future
+        CompletableFuture<String> future = completableCommandsRegistry.getCompletableFor(user);
+        if (future != null) {
+            d(() -> new StringMessage(user.name() + " completed command with " + String.join(" ", input)));
+            future.complete(command);
+            result.outcome(CommandResult.Outcome.COMPLETED);
+            return;
+        }
 
-            if (roots.isEmpty()) {
-                suggestionOutput.accept(Collections.singletonList("<invalid>"));
+        for (VCommandable root : indexer.searchPermitted(input.get(0), 1, getSettings().matchThreshold, user::hasPermission).stream().map(BKTreeIndexer.Match::element).toList()) {
+            d(() -> new StringMessage("Running root: " + root.name()));
+            if (root.run(input.subList(1, input.size()), user)) {
                 return;
             }
+        }
+
+        result.mark(CommandResult.Stage.RESOLVE);
+        sendNotFound(fCommand, user);
+    }
 
-            for (VCommandable root : roots) {
-                d(new StringMessage("Running root suggestions: " + ((VClass) root).instance().getClass().getSimpleName()));
-                suggestions.addAll(root.suggest(input.subList(1, input.size()), user));
+    /**
+     * Inform a user that no command could be found for their input.
+     * @param command the (cleaned) input
+     * @param user the user
+     */
+    private void sendNotFound(@NotNull String command, @NotNull User user) {
+        d(() -> new StringMessage("Could not find suitable command for input: " + command));
+        user.send(new StringMessage("Failed to run any commands for your input. Please try (one of): " + String.join(", ", rootCommands.stream().map(VCommandable::name).toList())));
+    }
+
+    /**
+     * Run a batch of commands through the system, without blocking.<br>
+     * All inputs are cleaned, resolved and parsed in a single pass on one executor task, reusing the resolved command path for repeated prefixes.
+     * Afterwards, async commands run in parallel on the {@link #executor} (or in order, if {@link #serialPerUser}),
+     * and all sync commands are submitted to the {@link #syncRunner} at once, in input order.<br>
+     * Unlike {@link #command(String, User)}, each input only resolves to the best matching command; equally good candidates are not tried if it fails.
+     * Inputs in a batch never complete pending option picks.
+     * A batch takes a single token from the rate limit of the user, and is rejected rather than delayed when it is exceeded.
+     * @param commands the commands to run
+     * @param user the user that ran the commands
+     * @return a future completed with the results (in input order) once all commands finished
+     */
+    final public @NotNull CompletableFuture<List<CommandResult>> commandBatch(@NotNull List<String> commands, @NotNull User user) {
+        List<CommandResult.Builder> results = commands.stream().map(CommandResult.Builder::new).toList();
+        CompletableFuture<List<CommandResult>> batch = CompletableFuture.allOf(results.stream().map(CommandResult.Builder::future).toArray(CompletableFuture[]::new))
+                .thenApply(v -> results.stream().map(result -> result.future().join()).toList());
+        if (admission.admit(user) != 0) {
+            user.send(RATE_LIMITED_MESSAGE);
+            results.forEach(result -> result.complete(CommandResult.Outcome.RATE_LIMITED));
+            return batch;
+        }
+        i(() -> new StringMessage(user.name() + " sent a batch of " + commands.size() + " commands"));
+        executeCommand(() -> dispatchBatch(commands, user, results), user, () -> {
+            user.send(BUSY_MESSAGE);
+            results.forEach(result -> result.complete(CommandResult.Outcome.REJECTED));
+        });
+        return batch;
+    }
+
+    /**
+     * Dispatch a batch of commands, on the current thread. See {@link #commandBatch(List, User)}.
+     * @param commands the commands to run
+     * @param user the user that ran the commands
+     * @param results the result builders, one per command
+     */
+    private void dispatchBatch(@NotNull List<String> commands, @NotNull User user, @NotNull List<CommandResult.Builder> results) {
+        new UserContext().post(user);
+        new SystemContext().post(this);
+        results.forEach(result -> result.mark(CommandResult.Stage.QUEUE));
+
+        // Tokenize all inputs
+        List<List<String>> inputs = new ArrayList<>(commands.size());
+        for (String command : commands) {
+            inputs.add(List.of(ParameterParser.cleanCommand(command.strip()).split(" ")));
+        }
+        results.forEach(result -> result.mark(CommandResult.Stage.CLEAN));
+
+        // Resolve and parse all inputs
+        Map<List<String>, VCommandable> resolved = new HashMap<>();
+        List<Runnable> syncInvocations = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            List<String> input = inputs.get(i);
+            CommandResult.Builder result = results.get(i);
+            try {
+                BatchResolution resolution = resolve(input, user, resolved);
+                if (resolution.node() instanceof VMethod method) {
+                    Object[] values = method.prepare(input.subList(resolution.depth(), input.size()), user, result);
+                    if (values == null) {
+                        continue;
+                    }
+                    result.hold();
+                    Runnable invocation = () -> {
+                        try {
+                            method.invoke(values, user, result);
+                        } finally {
+                            result.release();
+                        }
+                    };
+                    if (method.command().sync()) {
+                        syncInvocations.add(invocation);
+                    } else if (lanes != null) {
+                        invocation.run();
+                    } else {
+                        execute(() -> {
+                            new UserContext().post(user);
+                            new SystemContext().post(this);
+                            result.attach(Thread.currentThread());
+                            try {
+                                invocation.run();
+                            } finally {
+                                result.detach();
+                            }
+                        }, user, () -> result.complete(CommandResult.Outcome.REJECTED));
+                    }
+                } else if (resolution.node() != null && resolution.depth() == input.size()) {
+                    user.send(resolution.node().getHelpFor(user));
+                    result.mark(CommandResult.Stage.RESOLVE).outcome(CommandResult.Outcome.HELP);
+                } else {
+                    result.mark(CommandResult.Stage.RESOLVE);
+                    sendNotFound(String.join(" ", input), user);
+                }
+            } catch (RuntimeException e) {
+                String failed = commands.get(i);
+                w(() -> new StringMessage("Dispatching '" + failed + "' for " + user.name() + " failed due to " + e));
+                result.error(e).outcome(CommandResult.Outcome.FAILED);
             }
+        }
 
-            if (suggestions.isEmpty()) {
-                suggestionOutput.accept(Collections.singletonList("<none>"));
-                return;
+        // Submit all sync commands at once
+        if (!syncInvocations.isEmpty()) {
+            runSync(() -> {
+                new UserContext().post(user);
+                new SystemContext().post(this);
+                syncInvocations.forEach(Runnable::run);
+            });
+        }
+
+        results.forEach(CommandResult.Builder::release);
+    }
+
+    /**
+     * Resolve the command path of an input, following only the best match at every level.
+     * @param input the tokenized input
+     * @param user the user that sent the input
+     * @param resolved previously resolved prefixes of inputs, which is added to
+     * @return the deepest node that was resolved, and the number of input tokens used to get there
+     */
+    private @NotNull BatchResolution resolve(@NotNull List<String> input, @NotNull User user, @NotNull Map<List<String>, VCommandable> resolved) {
+        VCommandable node = null;
+        int depth = 0;
+        while (depth < input.size() && (node == null || node instanceof VClass)) {
+            List<String> prefix = input.subList(0, depth + 1);
+            VCommandable next;
+            if (resolved.containsKey(prefix)) {
+                next = resolved.get(prefix);
+            } else {
+                BKTreeIndexer level = node == null ? indexer : ((VClass) node).indexer();
+                List<BKTreeIndexer.Match> candidates = level.searchPermitted(input.get(depth), 1, getSettings().matchThreshold, user::hasPermission);
+                next = candidates.isEmpty() ? null : candidates.get(0).element();
+                resolved.put(prefix, next);
+            }
+            if (next == null) {
+                break;
             }
+            node = next;
+            depth++;
+        }
+        return new BatchResolution(node, depth);
+    }
+
+    /**
+     * Resolution of a command path in a batch.
+     * @param node the deepest node that was resolved, or {@code null} if not even a root was
+     * @param depth the number of input tokens used to get to the {@code node}
+     */
+    private record BatchResolution(@Nullable VCommandable node, int depth) {}
 
-            suggestionOutput.accept(suggestions);
-        };
 
+    /**
+     * Get suggestions for a command.<br>
+     * Unless forced sync, requests are coalesced per user: if the user requests suggestions again before these are computed,
+     * only the newer request is answered and this {@code suggestionOutput} is never called.
+     * @param command the input to get suggestions for
+     * @param user the user that wants the suggestions
+     * @param suggestionOutput the consumer to send the output to when it is done
+     * @param forceSync force the execution of suggestion retrieval in sync (testing)
+     */
+    final public void suggest(@NotNull String command, @NotNull User user, @NotNull Consumer<List<String>> suggestionOutput, boolean forceSync) {
+        i(() -> new StringMessage(user.name() + " wants suggestions for command: " +  command));
         if (forceSync) {
             d(new StringMessage("Running suggestion in forced sync. Likely for testing purposes."));
-            r.run();
+            suggestionOutput.accept(suggestions(command, user));
         } else {
-            new Thread(r).start();
+            suggestions.submit(command, user, suggestionOutput);
+        }
+    }
+
+    /**
+     * Compute suggestions for a command.
+     * @param command the input to get suggestions for
+     * @param user the user that wants the suggestions
+     * @return the suggestions
+     */
+    private @NotNull List<String> suggestions(@NotNull String command, @NotNull User user) {
+        final String fCommand = ParameterParser.cleanCommand(command);
+
+        List<String> input = List.of(fCommand.split(" "));
+
+        // Blank check
+        if (input.isEmpty()) {
+            List<String> primarySuggestions = new ArrayList<>();
+            List<String> secondarySuggestions = new ArrayList<>();
+            for (VCommandable root : rootCommands) {
+                primarySuggestions.add(root.name());
+                secondarySuggestions.addAll(root.getAliases());
+            }
+            primarySuggestions.addAll(secondarySuggestions);
+            return primarySuggestions;
         }
+
+        d(() -> new StringMessage("Suggesting for command: " + fCommand));
+
+        // Loop over roots
+        new UserContext().post(user);
+        new SystemContext().post(this);
+
+        List<String> suggestions = new ArrayList<>();
+        List<BKTreeIndexer.Match> roots = indexer.searchCompletions(input.get(0), getSettings().suggestionMatches, getSettings().matchThreshold, user::hasPermission);
+
+        if (roots.isEmpty()) {
+            return Collections.singletonList("<invalid>");
+        }
+
+        for (VCommandable root : roots.stream().map(BKTreeIndexer.Match::element).toList()) {
+            d(() -> new StringMessage("Running root suggestions: " + ((VClass) root).instance().getClass().getSimpleName()));
+            suggestions.addAll(root.suggest(input.subList(1, input.size()), user));
+        }
+
+        if (suggestions.isEmpty()) {
+            return Collections.singletonList("<none>");
+        }
+
+        return suggestions;
     }
 
 
+    /**
+     * Run a command runnable on the {@link #executor}, in the lane of the user if {@link #serialPerUser}.
+     * @param runnable the runnable to run
+     * @param user the user the runnable is run for
+     * @param onRejected ran (on the calling thread) if the executor rejects the runnable
+     */
+    private void executeCommand(@NotNull Runnable runnable, @NotNull User user, @NotNull Runnable onRejected) {
+        if (lanes == null) {
+            execute(runnable, user, onRejected);
+            return;
+        }
+        lanes.execute(user, runnable, () -> {
+            w(() -> new StringMessage("Rejected input of " + user.name() + " because the executor is saturated"));
+            onRejected.run();
+        });
+    }
+
+    /**
+     * Run a runnable on the {@link #executor}.
+     * @param runnable the runnable to run
+     * @param user the user the runnable is run for
+     * @param onRejected ran (on the calling thread) if the executor rejects the runnable
+     */
+    private void execute(@NotNull Runnable runnable, @NotNull User user, @NotNull Runnable onRejected) {
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            w(() -> new StringMessage("Rejected input of " + user.name() + " because the executor is saturated"));
+            onRejected.run();
+        }
+    }
+
     /**
      * Make a {@link Permission} node.
      * @param input the input to make the node
@@ -434,6 +847,36 @@ public class Edict {
         systemUser.d(message);
     }
 
+    /**
+     * Send an information message to the system, only building it if information messages are enabled.
+     */
+    final public void i(Supplier<Message> message) {
+        systemUser.i(message);
+    }
+
+    /**
+     * Send a warning message to the system, only building it if warning messages are enabled.
+     */
+    final public void w(Supplier<Message> message) {
+        systemUser.w(message);
+    }
+
+    /**
+     * Send a debug message to the system, only building it if debug messages are enabled.
+     */
+    final public void d(Supplier<Message> message) {
+        systemUser.d(message);
+    }
+
+    /**
+     * Whether system messages of a level are sent.
+     * @param level the level
+     * @return true if messages of the level are sent
+     */
+    final public boolean isLogging(@NotNull SystemUser.Level level) {
+        return systemUser.isEnabled(level);
+    }
+
     /**
      * Get system settings.
      * @return the system settings
@@ -442,6 +885,14 @@ public class Edict {
         return settings;
     }
 
+    /**
+     * Get the cache of fuzzy command resolution results, for example to read its hit and miss counters.
+     * @return the resolution cache
+     */
+    final public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
     /**
      * Get the {@link ParameterHandlers}.
      * @return the {@link ParameterHandlers}
@@ -490,8 +941,8 @@ public class Edict {
             }
         }
         builder.append("Command Network\n")
-                .append("Name [alias, alias, alias] ((sub)categories | commands)").append("\n")
-                .append("<root> (").append(rootCats).append(" | ").append(rootComs).append(")");
+                .append("Name [alias, alias, alias] ((sub)categories | commands) {index}").append("\n")
+                .append("<root> (").append(rootCats).append(" | ").append(rootComs).append(") {").append(indexer.index().name()).append("}");
         for (VCommandable rootCommand : rootCommands) {
             rootCommand.networkString(builder, networkStringIndent, networkStringIndent);
         }
@@ -17,6 +17,8 @@ public @interface Command {
 
     String NO_PERMISSION_NEEDED = "";
 
+    long DEFAULT_TIMEOUT = -1;
+
     /**
      * The description of this command.
      */
@@ -58,4 +60,12 @@ public @interface Command {
      * @return true if this category's commands should be used directly, omitting the category.
      */
     boolean singleCommandCategory() default false;
+
+    /**
+     * The number of milliseconds after which this command times out. Its result then completes as timed out, and the thread running it is interrupted.
+     * Commands ran by {@link Edict#runSync(Runnable)} are not interrupted.<br>
+     * By default ({@link #DEFAULT_TIMEOUT}), uses {@link art.arcane.edict.util.EDictionary#commandTimeout}. Set to 0 to never time out.
+     * @return the timeout in milliseconds
+     */
+    long timeoutMillis() default DEFAULT_TIMEOUT;
 }
@@ -0,0 +1,54 @@
+package art.arcane.edict.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Static descriptor of a class annotated by {@link Command}, generated at compile time by the {@code edict-processor} annotation processor.<br>
+ * When a class has a descriptor, its commands and subcategories are looked up directly, instead of scanning all of its declared methods and fields.
+ */
+public interface CommandDescriptor {
+
+    /**
+     * Suffix that is appended to the binary name of a class to get the binary name of its descriptor.
+     */
+    String SUFFIX = "$EdictDescriptor";
+
+    /**
+     * The methods of the class that are annotated by {@link Command}, in declaration order.
+     * @return the methods
+     * @throws ReflectiveOperationException if the class no longer matches the descriptor
+     */
+    @NotNull Method @NotNull [] methods() throws ReflectiveOperationException;
+
+    /**
+     * The source names of the parameters of each of the {@link #methods()}, used for parameters without a {@link Param#name()},
+     * since reflection only knows them if the class was compiled with {@code -parameters}.
+     * @return the parameter names, per method
+     */
+    @NotNull String @NotNull [] @NotNull [] parameterNames();
+
+    /**
+     * The fields of the class with a type that is annotated by {@link Command}, in declaration order.
+     * @return the fields
+     * @throws ReflectiveOperationException if the class no longer matches the descriptor
+     */
+    @NotNull Field @NotNull [] categories() throws ReflectiveOperationException;
+
+    /**
+     * Load the descriptor of a class.
+     * @param clazz the class
+     * @return the descriptor, or {@code null} if the class was not compiled with the annotation processor
+     */
+    static @Nullable CommandDescriptor of(@NotNull Class<?> clazz) {
+        try {
+            Class<?> descriptor = Class.forName(clazz.getName() + SUFFIX, true, clazz.getClassLoader());
+            return (CommandDescriptor) descriptor.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+            return null;
+        }
+    }
+}
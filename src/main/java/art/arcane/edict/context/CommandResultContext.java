@@ -0,0 +1,21 @@
+package art.arcane.edict.context;
+
+import art.arcane.edict.execution.CommandResult;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Context for the {@link CommandResult.Builder} of the command that is being dispatched.
+ */
+public class CommandResultContext implements Context<CommandResult.Builder> {
+
+    /**
+     * Context map.
+     */
+    private static final ConcurrentHashMap<Thread, CommandResult.Builder> context = new ConcurrentHashMap<>();
+
+    @Override
+    public ConcurrentHashMap<Thread, CommandResult.Builder> context() {
+        return context;
+    }
+}
@@ -0,0 +1,166 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.user.User;
+import art.arcane.edict.util.EDictionary;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user rate limiting of commands, using a token bucket per {@link User} that is configured in {@link EDictionary}.<br>
+ * Every bucket is a single {@link AtomicLong} updated with compare-and-set, so admitting a command never takes a lock.
+ * Buckets that have refilled completely are periodically forgotten on the sweeper,
+ * keeping memory bounded by the number of recently active users without pausing the admitting thread.
+ */
+public class AdmissionController {
+
+    /**
+     * Returned by {@link #admit(User)} when the command is rejected.
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * Number of admissions between sweeps for idle buckets.
+     */
+    private static final int SWEEP_INTERVAL = 4096;
+
+    /**
+     * The settings the buckets are configured by.
+     */
+    private final @NotNull EDictionary settings;
+
+    /**
+     * Executor to sweep idle buckets on.
+     */
+    private final @NotNull Executor sweeper;
+
+    /**
+     * Buckets of recently active users.
+     */
+    private final ConcurrentHashMap<User, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Admissions since the last sweep.
+     */
+    private final AtomicInteger admissions = new AtomicInteger();
+
+    /**
+     * Whether a sweep is scheduled or running.
+     */
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /**
+     * Create a new admission controller.
+     * @param settings the settings the buckets are configured by. Changes are picked up on the next admission.
+     * @param sweeper the executor to sweep idle buckets on
+     */
+    public AdmissionController(@NotNull EDictionary settings, @NotNull Executor sweeper) {
+        this.settings = settings;
+        this.sweeper = sweeper;
+    }
+
+    /**
+     * Try to admit a command of a user, taking a token from their bucket.
+     * @param user the user that sent the command
+     * @return {@code 0} if the command can run now,
+     * the number of nanoseconds to delay it by if the bucket is empty but refills within {@link EDictionary#rateLimitMaxDelay},
+     * or {@link #REJECTED} if the command must be rejected
+     */
+    public long admit(@NotNull User user) {
+        if (settings.rateLimitBurst <= 0 || settings.rateLimitPerSecond <= 0) {
+            return 0;
+        }
+
+        if (admissions.incrementAndGet() >= SWEEP_INTERVAL && sweeping.compareAndSet(false, true)) {
+            admissions.set(0);
+            try {
+                sweeper.execute(this::sweep);
+            } catch (RejectedExecutionException e) {
+                sweeping.set(false);
+            }
+        }
+
+        long now = System.nanoTime();
+
+        long interval = (long) (1_000_000_000L / settings.rateLimitPerSecond);
+        long tolerance = interval * (settings.rateLimitBurst - 1);
+        long maxDelay = Math.max(0, settings.rateLimitMaxDelay) * 1_000_000L;
+        return buckets.computeIfAbsent(user, u -> new TokenBucket(now)).take(now, interval, tolerance, maxDelay);
+    }
+
+    /**
+     * Forget the buckets that have refilled completely.
+     */
+    private void sweep() {
+        try {
+            long now = System.nanoTime();
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * The number of users with a bucket that has not refilled yet (or not been swept yet).
+     * @return the number of buckets
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Token bucket in the form of the equivalent generic cell rate algorithm:
+     * instead of a token count and refill time, it only stores the time at which the bucket would be full again.
+     */
+    private static final class TokenBucket {
+
+        /**
+         * Theoretical time at which the bucket is full again, in {@link System#nanoTime()}.
+         */
+        private final AtomicLong full;
+
+        /**
+         * Create a new, full, bucket.
+         * @param now the current time
+         */
+        private TokenBucket(long now) {
+            full = new AtomicLong(now);
+        }
+
+        /**
+         * Take a token from this bucket.
+         * @param now the current time
+         * @param interval nanoseconds it takes to refill one token
+         * @param tolerance nanoseconds of refill debt that may be built up without delay (burst size minus one, times the interval)
+         * @param maxDelay maximum nanoseconds to delay by instead of rejecting
+         * @return the delay in nanoseconds, or {@link #REJECTED}
+         */
+        private long take(long now, long interval, long tolerance, long maxDelay) {
+            while (true) {
+                long current = full.get();
+                long start = Math.max(current, now);
+                long delay = start - now - tolerance;
+                if (delay > maxDelay) {
+                    return REJECTED;
+                }
+                if (full.compareAndSet(current, start + interval)) {
+                    return Math.max(0, delay);
+                }
+            }
+        }
+
+        /**
+         * Whether this bucket is full (and thus equal to a new bucket).
+         * @param now the current time
+         * @return true if the bucket is full
+         */
+        private boolean isFull(long now) {
+            return full.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.Edict;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the {@link Executor}s that {@link Edict} runs commands and suggestions on.<br>
+ * All executors made here reject work (by throwing a {@link RejectedExecutionException}) once their queue depth is reached.
+ * {@link Edict} catches the rejection and informs the user that the system is busy, instead of queueing without bound.
+ */
+public final class CommandExecutors {
+
+    /**
+     * Default maximum number of commands that may be waiting for (or running on) an executor.
+     */
+    public static final int DEFAULT_QUEUE_DEPTH = 1024;
+
+    /**
+     * Default number of threads for a {@link #bounded(int, int)} pool.
+     */
+    public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * {@code Executors#newVirtualThreadPerTaskExecutor()}, or {@code null} when running on Java versions before 21.
+     */
+    private static final @Nullable Method VIRTUAL_FACTORY = findVirtualFactory();
+
+    /**
+     * The pool shared by all {@link SuggestionService}s made with the {@link #suggestionExecutor()}.
+     */
+    private static volatile @Nullable Executor sharedSuggestionExecutor;
+
+    private CommandExecutors() {}
+
+    /**
+     * The default executor.
+     * Uses {@link #virtual(int)} if virtual threads are available (Java 21+), and a {@link #bounded(int, int)} pool otherwise.
+     * @return a new executor
+     */
+    public static @NotNull Executor defaultExecutor() {
+        if (virtualThreadsAvailable()) {
+            return virtual(DEFAULT_QUEUE_DEPTH);
+        }
+        return bounded(DEFAULT_THREADS, DEFAULT_QUEUE_DEPTH);
+    }
+
+    /**
+     * A pool with a fixed maximum number of (daemon) threads, which time out when idle.
+     * @param threads the maximum number of threads
+     * @param queueDepth the maximum number of commands waiting for a thread. Commands submitted beyond this are rejected.
+     * @return a new executor
+     * @throws IllegalArgumentException if {@code threads} or {@code queueDepth} is smaller than 1
+     */
+    public static @NotNull Executor bounded(int threads, int queueDepth) throws IllegalArgumentException {
+        return bounded(threads, queueDepth, "Edict-Command-");
+    }
+
+    /**
+     * The small pool shared by all {@link Edict} instances to compute suggestions on.<br>
+     * Suggestions are requested at keystroke rate and superseded just as quickly, so a few threads are plenty, and they are kept away from the command executor.
+     * @return the shared executor
+     */
+    public static @NotNull Executor suggestionExecutor() {
+        Executor executor = sharedSuggestionExecutor;
+        if (executor == null) {
+            synchronized (CommandExecutors.class) {
+                executor = sharedSuggestionExecutor;
+                if (executor == null) {
+                    executor = bounded(Math.max(1, Runtime.getRuntime().availableProcessors() / 4), DEFAULT_QUEUE_DEPTH, "Edict-Suggest-");
+                    sharedSuggestionExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * A pool with a fixed maximum number of (daemon) threads, which time out when idle.
+     * @param threads the maximum number of threads
+     * @param queueDepth the maximum number of tasks waiting for a thread
+     * @param threadPrefix the prefix of the thread names
+     * @return a new executor
+     * @throws IllegalArgumentException if {@code threads} or {@code queueDepth} is smaller than 1
+     */
+    private static @NotNull Executor bounded(int threads, int queueDepth, @NotNull String threadPrefix) throws IllegalArgumentException {
+        if (threads < 1 || queueDepth < 1) {
+            throw new IllegalArgumentException("Thread count and queue depth must be at least 1, but are " + threads + " and " + queueDepth);
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                new NamedThreadFactory(threadPrefix),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * An executor that starts a virtual thread per command (Java 21+).
+     * @param maxInFlight the maximum number of commands running at the same time. Commands submitted beyond this are rejected.
+     * @return a new executor
+     * @throws UnsupportedOperationException if virtual threads are not available in this runtime
+     * @throws IllegalArgumentException if {@code maxInFlight} is smaller than 1
+     */
+    public static @NotNull Executor virtual(int maxInFlight) throws UnsupportedOperationException, IllegalArgumentException {
+        if (VIRTUAL_FACTORY == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer, but running on " + Runtime.version());
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight commands must be at least 1, but is " + maxInFlight);
+        }
+        try {
+            return new LimitedExecutor((Executor) VIRTUAL_FACTORY.invoke(null), maxInFlight);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Could not create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * The legacy behaviour of starting a new platform thread for every command. Never rejects.
+     * @return a new executor
+     */
+    public static @NotNull Executor threadPerCommand() {
+        return runnable -> new Thread(runnable).start();
+    }
+
+    /**
+     * Whether virtual threads are available in this runtime (Java 21+).
+     * @return true if {@link #virtual(int)} can be used
+     */
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * Look up {@code Executors#newVirtualThreadPerTaskExecutor()}.
+     * @return the method, or {@code null} if it does not exist in this runtime
+     */
+    private static @Nullable Method findVirtualFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Executor that limits the amount of in-flight commands of a delegate executor.
+     */
+    private static final class LimitedExecutor implements Executor {
+
+        /**
+         * The executor running the commands.
+         */
+        private final @NotNull Executor delegate;
+
+        /**
+         * Permits for in-flight commands.
+         */
+        private final @NotNull Semaphore permits;
+
+        /**
+         * Create a new limited executor.
+         * @param delegate the executor running the commands
+         * @param maxInFlight the maximum number of in-flight commands
+         */
+        private LimitedExecutor(@NotNull Executor delegate, int maxInFlight) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxInFlight);
+        }
+
+        @Override
+        public void execute(@NotNull Runnable command) throws RejectedExecutionException {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("Too many commands in flight");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Thread factory for daemon threads with a name prefix.
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        /**
+         * Thread name prefix.
+         */
+        private final @NotNull String prefix;
+
+        /**
+         * Counter for thread names.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Create a new thread factory.
+         * @param prefix the prefix of the thread names
+         */
+        private NamedThreadFactory(@NotNull String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NotNull Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
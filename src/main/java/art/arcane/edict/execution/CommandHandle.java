@@ -0,0 +1,42 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.Edict;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle to a command ran through {@link Edict#commandAsync(String, art.arcane.edict.user.User)}.
+ * Completes with the {@link CommandResult} of the command, and can be used to cancel it.
+ */
+public class CommandHandle extends CompletableFuture<CommandResult> {
+
+    /**
+     * The builder of the result this handle completes with.
+     */
+    private final @NotNull CommandResult.Builder result;
+
+    /**
+     * Create a new command handle.
+     * @param result the builder of the result this handle completes with
+     */
+    CommandHandle(@NotNull CommandResult.Builder result) {
+        this.result = result;
+    }
+
+    /**
+     * Cancel the command. If it has not started yet, it never will.
+     * If it is running on the executor and {@code mayInterruptIfRunning} is true, the executor thread is interrupted.
+     * Commands running on the sync runner are never interrupted, but are not waited for either.
+     * @param mayInterruptIfRunning whether to interrupt the thread running the command
+     * @return true if the command is now cancelled
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && mayInterruptIfRunning) {
+            result.interrupt();
+        }
+        return cancelled;
+    }
+}
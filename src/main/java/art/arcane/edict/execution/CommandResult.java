@@ -0,0 +1,354 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.Edict;
+import art.arcane.edict.virtual.VMethod;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Result of a command ran through {@link Edict#commandAsync(String, art.arcane.edict.user.User)}.
+ * @param input the input the user sent
+ * @param outcome the outcome of the command
+ * @param method the method that was resolved from the input, or {@code null} if none was
+ * @param arguments the arguments parsed for the {@code method}, or {@code null} if parsing did not succeed
+ * @param returnValue the value returned by the {@code method}, or {@code null} if it returned nothing (or did not run)
+ * @param error the error thrown by the {@code method} or by the system, or {@code null} if none was thrown
+ * @param timings the time spent in each stage
+ */
+public record CommandResult(@NotNull String input, @NotNull Outcome outcome, @Nullable VMethod method, Object @Nullable [] arguments, @Nullable Object returnValue, @Nullable Throwable error, @NotNull Timings timings) {
+
+    /**
+     * Whether the command ran successfully.
+     * @return true if the {@link #outcome()} is {@link Outcome#SUCCESS}
+     */
+    public boolean success() {
+        return outcome == Outcome.SUCCESS;
+    }
+
+    /**
+     * Outcome of a command.
+     */
+    public enum Outcome {
+        /**
+         * The command ran without throwing.
+         */
+        SUCCESS,
+        /**
+         * The input ended at a category, or lacked inputs, so help was sent instead.
+         */
+        HELP,
+        /**
+         * The input could not be parsed into the parameters of the command.
+         */
+        INVALID_INPUT,
+        /**
+         * No command matched the input.
+         */
+        NOT_FOUND,
+        /**
+         * The input was used to complete a pending option pick instead of running a command.
+         */
+        COMPLETED,
+        /**
+         * The command threw, or the system failed to invoke it.
+         */
+        FAILED,
+        /**
+         * The executor was saturated and rejected the command.
+         */
+        REJECTED,
+        /**
+         * The user sent too many commands and was rate limited.
+         */
+        RATE_LIMITED,
+        /**
+         * The command did not finish within its timeout.
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * Stages a command goes through.
+     */
+    public enum Stage {
+        /**
+         * Waiting for the executor to pick up the command.
+         */
+        QUEUE,
+        /**
+         * Cleaning and splitting the input.
+         */
+        CLEAN,
+        /**
+         * Searching the command tree for the command.
+         */
+        RESOLVE,
+        /**
+         * Parsing the arguments.
+         */
+        PARSE,
+        /**
+         * Invoking the command, including any wait for the sync runner.
+         */
+        INVOKE
+    }
+
+    /**
+     * Time spent in each {@link Stage}, in nanoseconds.
+     * @param queue time spent in {@link Stage#QUEUE}
+     * @param clean time spent in {@link Stage#CLEAN}
+     * @param resolve time spent in {@link Stage#RESOLVE}
+     * @param parse time spent in {@link Stage#PARSE}
+     * @param invoke time spent in {@link Stage#INVOKE}
+     */
+    public record Timings(long queue, long clean, long resolve, long parse, long invoke) {
+
+        /**
+         * Total time spent over all stages.
+         * @return the total time in nanoseconds
+         */
+        public long total() {
+            return queue + clean + resolve + parse + invoke;
+        }
+    }
+
+    /**
+     * Mutable builder for a {@link CommandResult}, passed along while a command is dispatched.<br>
+     * The result completes once the dispatching thread and all invocations it started (see {@link #hold()}) have {@link #release() released} it.
+     */
+    public static final class Builder {
+
+        /**
+         * The input.
+         */
+        private final @NotNull String input;
+
+        /**
+         * The future completed with the result.
+         */
+        private final @NotNull CommandHandle future = new CommandHandle(this);
+
+        /**
+         * Parties that still need to release this builder before the result completes. Starts at one for the dispatching thread.
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        /**
+         * Nanoseconds spent per stage, indexed by {@link Stage#ordinal()}.
+         */
+        private final long[] nanos = new long[Stage.values().length];
+
+        /**
+         * Time of the last {@link #mark(Stage)}.
+         */
+        private long last = System.nanoTime();
+
+        /**
+         * The outcome. Not found until something is resolved.
+         */
+        private volatile @NotNull Outcome outcome = Outcome.NOT_FOUND;
+
+        /**
+         * The resolved method.
+         */
+        private volatile @Nullable VMethod method;
+
+        /**
+         * The parsed arguments.
+         */
+        private volatile Object @Nullable [] arguments;
+
+        /**
+         * The value returned by the method.
+         */
+        private volatile @Nullable Object returnValue;
+
+        /**
+         * The error that occurred.
+         */
+        private volatile @Nullable Throwable error;
+
+        /**
+         * The executor thread currently running the command, which is interrupted on cancellation or timeout.
+         */
+        private @Nullable Thread runner;
+
+        /**
+         * Create a new result builder.
+         * @param input the input the user sent
+         */
+        public Builder(@NotNull String input) {
+            this.input = input;
+        }
+
+        /**
+         * Set the outcome.
+         * @param outcome the outcome
+         * @return this
+         */
+        public @NotNull Builder outcome(@NotNull Outcome outcome) {
+            this.outcome = outcome;
+            return this;
+        }
+
+        /**
+         * Set the resolved method.
+         * @param method the method
+         * @return this
+         */
+        public @NotNull Builder method(@Nullable VMethod method) {
+            this.method = method;
+            return this;
+        }
+
+        /**
+         * Set the parsed arguments.
+         * @param arguments the arguments
+         * @return this
+         */
+        public @NotNull Builder arguments(Object @Nullable [] arguments) {
+            this.arguments = arguments;
+            return this;
+        }
+
+        /**
+         * Set the value returned by the method.
+         * @param returnValue the return value
+         * @return this
+         */
+        public @NotNull Builder returnValue(@Nullable Object returnValue) {
+            this.returnValue = returnValue;
+            return this;
+        }
+
+        /**
+         * Set the error that occurred.
+         * @param error the error
+         * @return this
+         */
+        public @NotNull Builder error(@Nullable Throwable error) {
+            this.error = error;
+            return this;
+        }
+
+        /**
+         * Mark the end of a stage. The time since the previous mark is added to the stage.
+         * @param stage the stage that ended
+         * @return this
+         */
+        public synchronized @NotNull Builder mark(@NotNull Stage stage) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - last;
+            last = now;
+            return this;
+        }
+
+        /**
+         * Register another party (like a deferred sync invocation) that must {@link #release()} before the result completes.
+         */
+        public void hold() {
+            pending.incrementAndGet();
+        }
+
+        /**
+         * Release this builder. Completes the future when the last party releases.
+         */
+        public void release() {
+            if (pending.decrementAndGet() == 0) {
+                future.complete(build());
+            }
+        }
+
+        /**
+         * Complete the future immediately, regardless of pending parties.
+         * @param outcome the final outcome
+         */
+        public void complete(@NotNull Outcome outcome) {
+            CommandResult result;
+            synchronized (this) {
+                this.outcome = outcome;
+                result = build();
+            }
+            future.complete(result);
+        }
+
+        /**
+         * The handle that is completed with the result.
+         * @return the handle
+         */
+        public @NotNull CommandHandle future() {
+            return future;
+        }
+
+        /**
+         * Whether the result is already completed, cancelled or timed out, in which case any remaining work can be skipped.
+         * @return true if the result is done
+         */
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        /**
+         * Time out the command after a number of milliseconds, unless it completes before then.
+         * On timeout, the result completes with {@link Outcome#TIMED_OUT}, and the {@link #attach(Thread) attached} thread is interrupted.
+         * @param millis the timeout in milliseconds
+         */
+        public void timeout(long millis) {
+            CompletableFuture<Void> timer = new CompletableFuture<>();
+            timer.orTimeout(millis, TimeUnit.MILLISECONDS).whenComplete((v, e) -> {
+                if (e instanceof TimeoutException) {
+                    complete(Outcome.TIMED_OUT);
+                    interrupt();
+                }
+            });
+            future.whenComplete((r, e) -> timer.complete(null));
+        }
+
+        /**
+         * Attach the executor thread that runs the command, so it can be interrupted.
+         * @param thread the thread
+         */
+        public synchronized void attach(@NotNull Thread thread) {
+            runner = thread;
+        }
+
+        /**
+         * Detach the current thread, clearing any interrupt meant for this command so it does not leak into the next task of the thread.
+         */
+        public void detach() {
+            synchronized (this) {
+                runner = null;
+            }
+            //noinspection ResultOfMethodCallIgnored
+            Thread.interrupted();
+        }
+
+        /**
+         * Interrupt the attached thread, if any.
+         */
+        synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        /**
+         * Build the result as it currently is.
+         * @return the result
+         */
+        public synchronized @NotNull CommandResult build() {
+            return new CommandResult(input, outcome, method, arguments, returnValue, error, new Timings(
+                    nanos[Stage.QUEUE.ordinal()],
+                    nanos[Stage.CLEAN.ordinal()],
+                    nanos[Stage.RESOLVE.ordinal()],
+                    nanos[Stage.PARSE.ordinal()],
+                    nanos[Stage.INVOKE.ordinal()]
+            ));
+        }
+    }
+}
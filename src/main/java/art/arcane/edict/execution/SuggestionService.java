@@ -0,0 +1,184 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.user.User;
+import art.arcane.edict.util.EDictionary;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Computes suggestions for users on a shared {@link Executor}, coalescing requests per {@link User}.<br>
+ * Every user has at most one computation running and one request pending. A newer request replaces the pending one,
+ * whose output is never called, and results that were computed for input which has since been superseded are dropped.
+ * Like {@link UserLanes}, a user's slot is only modified inside {@link ConcurrentHashMap#compute} and removed once idle.
+ */
+public class SuggestionService {
+
+    /**
+     * The executor suggestions are computed on.
+     */
+    private final @NotNull Executor executor;
+
+    /**
+     * The function computing suggestions for an input of a user.
+     */
+    private final @NotNull BiFunction<@NotNull String, @NotNull User, @NotNull List<String>> suggester;
+
+    /**
+     * The settings, for the {@link EDictionary#suggestionDebounce}.
+     */
+    private final @NotNull EDictionary settings;
+
+    /**
+     * Slots of users with a pending or running request.
+     */
+    private final ConcurrentHashMap<User, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new suggestion service.
+     * @param executor the executor to compute suggestions on
+     * @param suggester the function computing suggestions for an input of a user
+     * @param settings the settings. Changes are picked up on the next request.
+     */
+    public SuggestionService(@NotNull Executor executor, @NotNull BiFunction<@NotNull String, @NotNull User, @NotNull List<String>> suggester, @NotNull EDictionary settings) {
+        this.executor = executor;
+        this.suggester = suggester;
+        this.settings = settings;
+    }
+
+    /**
+     * Request suggestions for the input of a user, superseding any of their requests that have not been answered yet.
+     * @param input the input to get suggestions for
+     * @param user the user that wants the suggestions
+     * @param output the consumer to send the suggestions to. Not called if this request is superseded,
+     *               and called with an empty list if the executor rejects it
+     *               (on the calling thread, or after the debounce delay if {@link EDictionary#suggestionDebounce} is set).
+     */
+    public void submit(@NotNull String input, @NotNull User user, @NotNull Consumer<List<String>> output) {
+        Request request = new Request(input, output);
+        boolean[] start = new boolean[1];
+        slots.compute(user, (u, slot) -> {
+            if (slot == null) {
+                slot = new Slot();
+            }
+            slot.pending = request;
+            slot.latest = request;
+            if (!slot.scheduled) {
+                slot.scheduled = true;
+                start[0] = true;
+            }
+            return slot;
+        });
+
+        if (!start[0]) {
+            return;
+        }
+
+        if (settings.suggestionDebounce > 0) {
+            CompletableFuture.delayedExecutor(settings.suggestionDebounce, TimeUnit.MILLISECONDS).execute(() -> schedule(user));
+        } else {
+            schedule(user);
+        }
+    }
+
+    /**
+     * Submit a drain of the slot of a user, which has to be marked scheduled already.
+     * If the executor rejects it, the slot is removed and its pending request gets an empty list.
+     * @param user the user whose slot to drain
+     */
+    private void schedule(@NotNull User user) {
+        try {
+            executor.execute(() -> drain(user));
+        } catch (RejectedExecutionException e) {
+            Request[] rejected = new Request[1];
+            slots.computeIfPresent(user, (u, slot) -> {
+                rejected[0] = slot.pending;
+                return null;
+            });
+            if (rejected[0] != null) {
+                rejected[0].output().accept(Collections.emptyList());
+            }
+        }
+    }
+
+    /**
+     * The number of users that currently have a pending or running request.
+     * @return the number of slots
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Compute suggestions for the pending requests of a user until there are none, then remove their slot.
+     * @param user the user whose requests to compute
+     */
+    private void drain(@NotNull User user) {
+        Request request;
+        while ((request = next(user)) != null) {
+            List<String> suggestions;
+            try {
+                suggestions = suggester.apply(request.input(), user);
+            } catch (RuntimeException e) {
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                continue;
+            }
+            Slot slot = slots.get(user);
+            if (slot == null || slot.latest == request) {
+                request.output().accept(suggestions);
+            }
+        }
+    }
+
+    /**
+     * Take the pending request of a user. Removes the slot if there is none.
+     * @param user the user
+     * @return the pending request, or {@code null} if there is none (and the slot has been removed)
+     */
+    private @Nullable Request next(@NotNull User user) {
+        Request[] next = new Request[1];
+        slots.computeIfPresent(user, (u, slot) -> {
+            next[0] = slot.pending;
+            slot.pending = null;
+            return next[0] == null ? null : slot;
+        });
+        return next[0];
+    }
+
+    /**
+     * A request for suggestions.
+     * @param input the input
+     * @param output the consumer to send the suggestions to
+     */
+    private record Request(@NotNull String input, @NotNull Consumer<List<String>> output) {}
+
+    /**
+     * The slot of a user. Only modified inside {@link ConcurrentHashMap#compute} on {@link #slots}.
+     */
+    private static final class Slot {
+
+        /**
+         * The request waiting to be computed.
+         */
+        private @Nullable Request pending;
+
+        /**
+         * The most recent request, against which finished computations are checked for staleness.
+         */
+        private volatile @Nullable Request latest;
+
+        /**
+         * Whether a thread is (or will be) draining this slot.
+         */
+        private boolean scheduled;
+    }
+}
@@ -0,0 +1,172 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.user.User;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs tasks of the same {@link User} in submission order, one at a time, while tasks of different users run in parallel on a shared {@link Executor}.<br>
+ * Each user gets a lane when they submit a task, which is removed again as soon as it runs out of tasks.
+ * Lanes are only ever modified inside {@link ConcurrentHashMap#compute}, which locks just the bin of that user rather than the whole map.
+ */
+public class UserLanes {
+
+    /**
+     * The executor lanes are drained on.
+     */
+    private final @NotNull Executor executor;
+
+    /**
+     * Lanes of users with pending or running tasks.
+     */
+    private final ConcurrentHashMap<User, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Create new user lanes.
+     * @param executor the executor to drain lanes on
+     */
+    public UserLanes(@NotNull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run a task in the lane of a user, after all tasks that user submitted before.
+     * @param user the user the task is for
+     * @param task the task
+     * @param onRejected ran (on the calling thread) if the executor rejects the lane.
+     *                   Tasks of the same user that were queued behind this one are rejected along with it.
+     */
+    public void execute(@NotNull User user, @NotNull Runnable task, @NotNull Runnable onRejected) {
+        Task queued = new Task(task, onRejected);
+        boolean[] start = new boolean[1];
+        lanes.compute(user, (u, lane) -> {
+            if (lane == null) {
+                lane = new Lane();
+            }
+            lane.tasks.add(queued);
+            if (!lane.running) {
+                lane.running = true;
+                start[0] = true;
+            }
+            return lane;
+        });
+
+        if (start[0]) {
+            start(user);
+        }
+    }
+
+    /**
+     * The number of users that currently have a lane.
+     * @return the number of lanes
+     */
+    public int size() {
+        return lanes.size();
+    }
+
+    /**
+     * Submit a drain of the lane of a user, which has to be marked running already.
+     * If the executor rejects it, the lane is removed and all of its tasks are rejected.
+     * @param user the user whose lane to drain
+     */
+    private void start(@NotNull User user) {
+        try {
+            executor.execute(() -> drain(user));
+        } catch (RejectedExecutionException e) {
+            List<Task> rejected = new ArrayList<>();
+            lanes.computeIfPresent(user, (u, lane) -> {
+                rejected.addAll(lane.tasks);
+                return null;
+            });
+            rejected.forEach(t -> t.onRejected().run());
+        }
+    }
+
+    /**
+     * Run the tasks in the lane of a user until it is empty, then remove the lane.<br>
+     * If a task throws an {@link Error}, the lane is released before the error is rethrown,
+     * so the remaining tasks of the user are drained by a new submission instead of being stuck behind a lane that is marked running forever.
+     * @param user the user whose lane to drain
+     */
+    private void drain(@NotNull User user) {
+        boolean drained = false;
+        try {
+            Task task;
+            while ((task = next(user)) != null) {
+                try {
+                    task.task().run();
+                } catch (RuntimeException e) {
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                }
+            }
+            drained = true;
+        } finally {
+            if (!drained) {
+                release(user);
+            }
+        }
+    }
+
+    /**
+     * Release the lane of a user whose drain was aborted.
+     * The lane is removed if it has no tasks left, otherwise a new drain is submitted for it.
+     * @param user the user whose lane to release
+     */
+    private void release(@NotNull User user) {
+        boolean[] restart = new boolean[1];
+        lanes.computeIfPresent(user, (u, lane) -> {
+            if (lane.tasks.isEmpty()) {
+                return null;
+            }
+            // The lane stays marked running and is handed to the new drain, so no concurrent submission can start a second one
+            restart[0] = true;
+            return lane;
+        });
+        if (restart[0]) {
+            start(user);
+        }
+    }
+
+    /**
+     * Take the next task from the lane of a user. Removes the lane if there is none.
+     * @param user the user
+     * @return the next task, or {@code null} if the lane is empty (and has been removed)
+     */
+    private Task next(@NotNull User user) {
+        Task[] next = new Task[1];
+        lanes.computeIfPresent(user, (u, lane) -> {
+            next[0] = lane.tasks.poll();
+            return next[0] == null ? null : lane;
+        });
+        return next[0];
+    }
+
+    /**
+     * A task in a lane.
+     * @param task the task
+     * @param onRejected ran if the lane is rejected
+     */
+    private record Task(@NotNull Runnable task, @NotNull Runnable onRejected) {}
+
+    /**
+     * The lane of a user. Only accessed inside {@link ConcurrentHashMap#compute} on {@link #lanes}.
+     */
+    private static final class Lane {
+
+        /**
+         * Pending tasks.
+         */
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+
+        /**
+         * Whether a thread is draining this lane.
+         */
+        private boolean running;
+    }
+}
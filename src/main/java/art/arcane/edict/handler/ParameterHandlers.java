@@ -17,12 +17,39 @@ public class ParameterHandlers extends ArrayList<ParameterHandler<?>> {
      }
 
      /**
-      * Get the handler for a certain type. No caching.
+      * Handlers resolved per type, or {@code null} if none were resolved since a handler was last replaced.
+      * It is only valid while {@link #modCount} equals {@link Resolution#modCount}, so adding or removing handlers invalidates it.
+      */
+     private transient volatile Resolution resolution;
+
+     /**
+      * Get the handler for a certain type. The handler is resolved once per type, until the handlers change.
       * @param type the type to get the handler for
       * @return the requested handler
       * @throws NullPointerException if no {@link ParameterHandler} is registered for the {@code type}
       */
      public ParameterHandler<?> getHandlerFor(Class<?> type) throws NullPointerException {
+          Resolution resolution = this.resolution;
+          if (resolution == null || resolution.modCount != modCount) {
+               resolution = new Resolution(modCount);
+               this.resolution = resolution;
+          }
+          return resolution.get(type);
+     }
+
+     @Override
+     public ParameterHandler<?> set(int index, ParameterHandler<?> element) {
+          resolution = null;
+          return super.set(index, element);
+     }
+
+     /**
+      * Find the first handler that supports a type.
+      * @param type the type to get the handler for
+      * @return the requested handler
+      * @throws NullPointerException if no {@link ParameterHandler} is registered for the {@code type}
+      */
+     private ParameterHandler<?> find(Class<?> type) throws NullPointerException {
           for (ParameterHandler<?> handler : this) {
                if (handler.supports(type)) {
                     return handler;
@@ -30,4 +57,28 @@ public class ParameterHandlers extends ArrayList<ParameterHandler<?>> {
           }
           throw new NullPointerException("Cannot find ParameterHandler for: " + type.getSimpleName());
      }
+
+     /**
+      * Handlers resolved per type, for the handlers as of a certain {@link #modCount}.
+      */
+     private final class Resolution extends ClassValue<ParameterHandler<?>> {
+
+          /**
+           * The {@link #modCount} of the handlers this resolution is for.
+           */
+          private final int modCount;
+
+          /**
+           * Create a new resolution.
+           * @param modCount the modification count of the handlers
+           */
+          private Resolution(int modCount) {
+               this.modCount = modCount;
+          }
+
+          @Override
+          protected ParameterHandler<?> computeValue(Class<?> type) {
+               return find(type);
+          }
+     }
 }
@@ -6,6 +6,7 @@ import art.arcane.edict.exception.ParsingException;
 import art.arcane.edict.exception.WhichException;
 import art.arcane.edict.message.ClickableMessage;
 import art.arcane.edict.message.StringMessage;
+import art.arcane.edict.user.SystemUser;
 import art.arcane.edict.user.User;
 import art.arcane.edict.virtual.VParam;
 import org.jetbrains.annotations.NotNull;
@@ -192,7 +193,7 @@ public class ParameterParser {
             String value = arg.split("\\Q=\\E")[1];
 
             for (VParam param : new ArrayList<>(remainingParams)) {
-                if (param.allNames().contains(key)) {
+                if (param.hasName(key)) {
                     remainingParams.remove(param);
                     inputs.put(param, value);
                     continue loop;
@@ -200,7 +201,7 @@ public class ParameterParser {
             }
 
             for (VParam param : new ArrayList<>(remainingParams)) {
-                for (String name : param.allNames()) {
+                for (String name : param.names()) {
                     if (name.contains(key)) {
                         remainingParams.remove(param);
                         inputs.put(param, value);
@@ -210,7 +211,7 @@ public class ParameterParser {
             }
 
             for (VParam param : new ArrayList<>(remainingParams)) {
-                for (String name : param.allNames()) {
+                for (String name : param.names()) {
                     if (key.contains(name)) {
                         remainingParams.remove(param);
                         inputs.put(param, value);
@@ -231,7 +232,7 @@ public class ParameterParser {
             String key = dashBooleanArgs.remove(0).substring(1);
 
             for (VParam param : new ArrayList<>(remainingParams)) {
-                if (param.allNames().contains(key)
+                if (param.hasName(key)
                         && param.parameter().getType().equals(Boolean.class)
                         || param.parameter().getType().equals(boolean.class)) {
                     remainingParams.remove(param);
@@ -241,7 +242,7 @@ public class ParameterParser {
             }
 
             for (VParam param : new ArrayList<>(remainingParams)) {
-                for (String name : param.allNames()) {
+                for (String name : param.names()) {
                     if (name.contains(key)
                             && param.parameter().getType().equals(Boolean.class)
                             || param.parameter().getType().equals(boolean.class)) {
@@ -253,7 +254,7 @@ public class ParameterParser {
             }
 
             for (VParam param : new ArrayList<>(remainingParams)) {
-                for (String name : param.allNames()) {
+                for (String name : param.names()) {
                     if (key.contains(name)
                             && param.parameter().getType().equals(Boolean.class)
                             || param.parameter().getType().equals(boolean.class)) {
@@ -329,7 +330,7 @@ public class ParameterParser {
         new HashMap<>(inputs).forEach((param, input) -> {
             inputs.remove(param);
             try {
-                values.put(param, system.getParameterHandlers().getHandlerFor(param.parameter().getType()).parse(input, param.name()));
+                values.put(param, param.parameterHandler().parse(input, param.name()));
             } catch (ParsingException e) {
                 badArgs.put(input, "Cannot parse this input to parameter " + param.name() + " of type " + param.parameter().getType().getSimpleName());
             } catch (WhichException e) {
@@ -376,18 +377,18 @@ public class ParameterParser {
      * Dump all data of this parser at any given time.
      */
     private void dump(String stage) {
-        if (!ENABLE_DEBUG) { return; }
-        system.d(new StringMessage(stage + " Dump for user: " + user.name()));
-        if (!input.isEmpty()) { system.d(new StringMessage("Input: " + String.join(" / ", input))); }
-        if (!remainingParams.isEmpty()) { system.d(new StringMessage("Params: " + String.join(" / ", remainingParams.stream().map(VParam::name).toList()))); }
-        if (!values.isEmpty()) { system.d(new StringMessage("Values: " + String.join(" / ", values.keySet().stream().map(k -> k.name() + " > " + k.parameterHandler().toStringForce(values.get(k))).toList()))); }
-        if (!inputs.isEmpty()) { system.d(new StringMessage("Inputs: " + String.join(" / " + inputs.keySet().stream().map(k -> k.name() + " = " + values.get(k))))); }
-        if (!badArgs.isEmpty()) { system.d(new StringMessage("BadArgs: " + String.join(" / ", badArgs.keySet().stream().map(k -> k + " > " + badArgs.get(k)).toList()))); }
-        if (!dashBooleanArgs.isEmpty()) { system.d(new StringMessage("DashArgs: " + String.join(" / " + dashBooleanArgs))); }
-        if (!keylessArgs.isEmpty()) { system.d(new StringMessage("KeylessArgs: " + String.join(" / " + keylessArgs))); }
-        if (!keyedArgs.isEmpty()) { system.d(new StringMessage("KeyedArgs: " + String.join(" / " + keyedArgs))); }
-        if (!missingInputs.isEmpty()) { system.d(new StringMessage("MissingInputs: " + String.join(" / " + missingInputs.stream().map(VParam::name).toList()) + "\n")); }
-        system.d(new StringMessage("End " + stage + " Dump"));
+        if (!ENABLE_DEBUG || !system.isLogging(SystemUser.Level.DEBUG)) { return; }
+        system.d(() -> new StringMessage(stage + " Dump for user: " + user.name()));
+        if (!input.isEmpty()) { system.d(() -> new StringMessage("Input: " + String.join(" / ", input))); }
+        if (!remainingParams.isEmpty()) { system.d(() -> new StringMessage("Params: " + String.join(" / ", remainingParams.stream().map(VParam::name).toList()))); }
+        if (!values.isEmpty()) { system.d(() -> new StringMessage("Values: " + String.join(" / ", values.keySet().stream().map(k -> k.name() + " > " + k.parameterHandler().toStringForce(values.get(k))).toList()))); }
+        if (!inputs.isEmpty()) { system.d(() -> new StringMessage("Inputs: " + String.join(" / " + inputs.keySet().stream().map(k -> k.name() + " = " + values.get(k))))); }
+        if (!badArgs.isEmpty()) { system.d(() -> new StringMessage("BadArgs: " + String.join(" / ", badArgs.keySet().stream().map(k -> k + " > " + badArgs.get(k)).toList()))); }
+        if (!dashBooleanArgs.isEmpty()) { system.d(() -> new StringMessage("DashArgs: " + String.join(" / " + dashBooleanArgs))); }
+        if (!keylessArgs.isEmpty()) { system.d(() -> new StringMessage("KeylessArgs: " + String.join(" / " + keylessArgs))); }
+        if (!keyedArgs.isEmpty()) { system.d(() -> new StringMessage("KeyedArgs: " + String.join(" / " + keyedArgs))); }
+        if (!missingInputs.isEmpty()) { system.d(() -> new StringMessage("MissingInputs: " + String.join(" / " + missingInputs.stream().map(VParam::name).toList()) + "\n")); }
+        system.d(() -> new StringMessage("End " + stage + " Dump"));
     }
 
     /**
@@ -433,7 +434,11 @@ public class ParameterParser {
 
             try {
                 result = Integer.parseInt(future.get(system.getSettings().optionPickTimeout, TimeUnit.SECONDS));
-            } catch (InterruptedException | ExecutionException ignored) {
+            } catch (InterruptedException ignored) {
+                // Cancelled or timed out, stop picking
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException ignored) {
                 user.send(new StringMessage("Your input was interrupted, please try again"));
             } catch (TimeoutException ignored) {
                 user.send(new StringMessage("Your input query timed out. Please enter your option within " + system.getSettings().optionPickTimeout + " seconds"));
@@ -4,16 +4,58 @@ package art.arcane.edict.user;
 import art.arcane.edict.message.Message;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.function.Supplier;
+
 /**
- * System user implementation. By default, sends to System.out.
+ * System user implementation. By default, sends to System.out.<br>
+ * Messages below the {@link #getLevel() level} are discarded. Use the {@link Supplier} overloads of {@link #i(Supplier)}, {@link #w(Supplier)} and {@link #d(Supplier)}
+ * for messages that are expensive to build, so they are not built at all when their level is disabled.
  */
 public class SystemUser implements User {
 
     /**
-     * Create a new system user.
+     * The minimum level of messages that are sent.
+     */
+    private volatile @NotNull Level level;
+
+    /**
+     * Create a new system user, sending {@link Level#INFO} and {@link Level#WARNING} messages.
      */
     public SystemUser() {
+        this(Level.INFO);
+    }
 
+    /**
+     * Create a new system user.
+     * @param level the minimum level of messages that are sent
+     */
+    public SystemUser(@NotNull Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Get the minimum level of messages that are sent.
+     * @return the level
+     */
+    public @NotNull Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Set the minimum level of messages that are sent.
+     * @param level the level
+     */
+    public void setLevel(@NotNull Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Whether messages of a level are sent.
+     * @param level the level
+     * @return true if messages of the level are sent
+     */
+    public boolean isEnabled(@NotNull Level level) {
+        return level.compareTo(this.level) >= 0;
     }
 
     @Override
@@ -48,20 +90,75 @@ public class SystemUser implements User {
      * Send an information message to the system.
      */
     public void i(Message message) {
-        send(message);
+        if (isEnabled(Level.INFO)) {
+            send(message);
+        }
     }
 
     /**
      * Send a warning message to the system.
      */
     public void w(Message message) {
-        send(message);
+        if (isEnabled(Level.WARNING)) {
+            send(message);
+        }
     }
 
     /**
      * Send a debug message to the system.
      */
     public void d(Message message) {
-        send(message);
+        if (isEnabled(Level.DEBUG)) {
+            send(message);
+        }
+    }
+
+    /**
+     * Send an information message to the system. The message is only built if {@link Level#INFO} is enabled.
+     */
+    public void i(Supplier<Message> message) {
+        if (isEnabled(Level.INFO)) {
+            i(message.get());
+        }
+    }
+
+    /**
+     * Send a warning message to the system. The message is only built if {@link Level#WARNING} is enabled.
+     */
+    public void w(Supplier<Message> message) {
+        if (isEnabled(Level.WARNING)) {
+            w(message.get());
+        }
+    }
+
+    /**
+     * Send a debug message to the system. The message is only built if {@link Level#DEBUG} is enabled.
+     */
+    public void d(Supplier<Message> message) {
+        if (isEnabled(Level.DEBUG)) {
+            d(message.get());
+        }
+    }
+
+    /**
+     * Levels of system messages, from most to least verbose.
+     */
+    public enum Level {
+        /**
+         * Debug, information and warning messages.
+         */
+        DEBUG,
+        /**
+         * Information and warning messages.
+         */
+        INFO,
+        /**
+         * Only warning messages.
+         */
+        WARNING,
+        /**
+         * No messages.
+         */
+        OFF
     }
 }
\ No newline at end of file
@@ -4,101 +4,448 @@ import art.arcane.edict.message.CompoundMessage;
 import art.arcane.edict.permission.Permission;
 import art.arcane.edict.user.User;
 import art.arcane.edict.virtual.VCommandable;
-import edu.gatech.gtri.bktree.BkTreeSearcher;
-import edu.gatech.gtri.bktree.Metric;
-import edu.gatech.gtri.bktree.MutableBkTree;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Function;
 
 public class BKTreeIndexer {
 
+    /**
+     * Damerau-Levenshtein Distance Algorithm (optimal string alignment variant). See {@link #damerauLevenshteinDistance(String, String)}.
+     */
+    protected static final Metric<String> DAMERAU_LEVENSHTEIN_DISTANCE = BKTreeIndexer::damerauLevenshteinDistance;
+
+    /**
+     * Per-thread scratch rows for {@link #damerauLevenshteinDistance(String, String)}: the row two back, the previous row and the current row.
+     */
+    private static final ThreadLocal<int[][]> DLD_ROWS = ThreadLocal.withInitial(() -> new int[3][32]);
+
     /**
      * Damerau-Levenshtein Distance Algorithm.<br>
-     * Based on pseudocode found at <a href="https://en.wikipedia.org/wiki/Damerau%E2%80%93Levenshtein_distance">Wikipedia - DL-Distance</a>.
+     * Based on pseudocode found at <a href="https://en.wikipedia.org/wiki/Damerau%E2%80%93Levenshtein_distance">Wikipedia - DL-Distance</a>.<br>
+     * The first characters of both strings are not compared, so this is the distance between the strings without their first character.
+     * @param name the name to compare
+     * @param input the input to compare
+     * @return the distance
+     * @throws IllegalArgumentException if either string is empty
      */
-    protected static final Metric<String> DAMERAU_LEVENSHTEIN_DISTANCE = (name, input) -> {
+    protected static int damerauLevenshteinDistance(@NotNull String name, @NotNull String input) throws IllegalArgumentException {
+        return damerauLevenshteinDistance(name, input, Integer.MAX_VALUE);
+    }
 
-        Integer[][] map = new Integer[input.length()][name.length()];
+    /**
+     * Bounded {@link #damerauLevenshteinDistance(String, String) Damerau-Levenshtein Distance Algorithm}.<br>
+     * Only cells on the diagonal band within {@code bound} of the main diagonal are computed, since cells outside it always exceed the bound,
+     * and computation stops as soon as every cell of a row exceeds the bound.
+     * Only the three rows needed for transpositions are kept, in per-thread buffers, so no garbage is created per comparison.
+     * @param name the name to compare
+     * @param input the input to compare
+     * @param bound the maximum distance of interest
+     * @return the distance if it is at most {@code bound}, and {@code bound + 1} otherwise
+     * @throws IllegalArgumentException if either string is empty
+     */
+    protected static int damerauLevenshteinDistance(@NotNull String name, @NotNull String input, int bound) throws IllegalArgumentException {
+        int rows = input.length();
+        int columns = name.length();
+        if (rows == 0 || columns == 0) {
+            throw new IllegalArgumentException("Cannot compute the distance between '" + input + "' and '" + name + "' because one of them is empty");
+        }
 
-        for (int i = 0; i < input.length(); i++) {
-            map[i][0] = i;
+        // No distance exceeds the longest string, so a larger bound is just as good and cannot overflow.
+        bound = Math.min(bound, Math.max(rows, columns));
+        int outside = bound + 1;
+        if (Math.abs(rows - columns) > bound) {
+            return outside;
         }
 
-        for (int i = 0; i < name.length(); i++) {
-            map[0][i] = i;
+        int[][] scratch = DLD_ROWS.get();
+        if (scratch[0].length < columns) {
+            scratch = new int[3][Math.max(columns, scratch[0].length * 2)];
+            DLD_ROWS.set(scratch);
         }
+        int[] twoBack = scratch[0];
+        int[] previous = scratch[1];
+        int[] current = scratch[2];
 
-        int cost;
-        for (int i = 1; i < input.length(); i++) {
-            for (int j = 1; j < name.length(); j++) {
-                if (input.charAt(i) == name.charAt(j)) {
-                    cost = 0;
-                } else {
-                    cost = 1;
-                }
+        for (int j = 0; j < columns; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i < rows; i++) {
+            char in = input.charAt(i);
+            char inBefore = input.charAt(i - 1);
+            int from = Math.max(1, i - bound);
+            int to = Math.min(columns - 1, i + bound);
 
-                map[i][j] = Math.min(Math.min(
-                        map[i-1][j] + 1,        // Deletion
-                        map[i][j-1] + 1),       // Insertion
-                        map[i-1][j-1] + cost    // Substitution
+            // Cells left and right of the band, which the next row reads
+            current[from - 1] = from == 1 ? i : outside;
+            if (to + 1 < columns) {
+                current[to + 1] = outside;
+            }
+
+            int rowMin = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                char na = name.charAt(j);
+                int distance = Math.min(Math.min(
+                        previous[j] + 1,                        // Deletion
+                        current[j - 1] + 1),                    // Insertion
+                        previous[j - 1] + (in == na ? 0 : 1)    // Substitution
                 );
 
-                if (i > 1 && j > 1 && input.charAt(i) == name.charAt(j-1) && input.charAt(i-1) == name.charAt(j)) {
-                    map[i][j] = Math.min(
-                            map[i][j],          // Previous
-                            map[i-2][j-2] + 1   // Transposition
-                    );
+                if (i > 1 && j > 1 && in == name.charAt(j - 1) && inBefore == na) {
+                    distance = Math.min(distance, twoBack[j - 2] + 1);  // Transposition
                 }
+
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
             }
+
+            if (rowMin > bound) {
+                return outside;
+            }
+
+            int[] recycled = twoBack;
+            twoBack = previous;
+            previous = current;
+            current = recycled;
         }
 
-        return (int) map[input.length() - 1][name.length() - 1];
-    };
+        return Math.min(previous[columns - 1], outside);
+    }
 
     /**
      * Adapter for {@link #DAMERAU_LEVENSHTEIN_DISTANCE} for {@link VCommandable} constructs.
      */
-    protected static final Metric<VCommandable> DLD_EDICT_ADAPTER = (vClass, input) -> {
+    protected static final Metric<VCommandable> DLD_EDICT_ADAPTER = (vClass, input) -> distance(vClass, input.name(), Integer.MAX_VALUE);
+
+    /**
+     * Bounded distance between a {@link VCommandable} (its closest name or alias) and an input.
+     * Exact and prefix matches are scored without computing the {@link #damerauLevenshteinDistance(String, String, int) Damerau-Levenshtein distance}.
+     * @param commandable the commandable
+     * @param input the input
+     * @param bound the maximum distance of interest
+     * @return the distance if it is at most {@code bound}, and {@code bound + 1} otherwise
+     */
+    protected static int distance(@NotNull VCommandable commandable, @NotNull String input, int bound) {
+        if (input.isBlank()) {
+            return 0;
+        }
+
+        // Min distance (best)
+        int best = Integer.MAX_VALUE;
+        for (String name : commandable.names()) {
+            int distance = prefixDistance(name, input);
+            if (distance == 0) {
+                return 0;
+            } else if (distance < 0) {
+                distance = damerauLevenshteinDistance(input, name, Math.min(bound, best - 1));
+            }
+            best = Math.min(best, distance);
+        }
+        return best > bound ? bound + 1 : best;
+    }
+
+    /**
+     * Bounded distance between compiled names and an input, like {@link #distance(VCommandable, String, int)},
+     * but using the precomputed {@link BitPattern}s of a node.
+     * @param patterns the compiled names
+     * @param input the input
+     * @param bound the maximum distance of interest
+     * @return the distance if it is at most {@code bound}, and {@code bound + 1} otherwise
+     */
+    protected static int distance(BitPattern @NotNull [] patterns, @NotNull String input, int bound) {
+        if (input.isBlank()) {
+            return 0;
+        }
 
         // Min distance (best)
-        OptionalInt result = vClass.allNames().stream().mapToInt(name -> {
-            if (input.name().isBlank() || name.equals(input.name())) {
+        int best = Integer.MAX_VALUE;
+        for (BitPattern pattern : patterns) {
+            int distance = prefixDistance(pattern.name(), input);
+            if (distance == 0) {
                 return 0;
-            } else if (name.startsWith(input.name())) {
-                return 1;
-            } else if (input.name().startsWith(name)) {
-                return 2;
-            } else {
-                return DAMERAU_LEVENSHTEIN_DISTANCE.distance(input.name(), name);
+            } else if (distance < 0) {
+                distance = pattern.distance(input, Math.min(bound, best - 1));
+            }
+            best = Math.min(best, distance);
+        }
+        return best > bound ? bound + 1 : best;
+    }
+
+    /**
+     * Distance between a name and an input if one is a prefix of the other.
+     * @param name the name
+     * @param input the input
+     * @return 0 if they are equal, 1 if the input is a prefix of the name, 2 if the name is a prefix of the input, and -1 otherwise
+     */
+    private static int prefixDistance(@NotNull String name, @NotNull String input) {
+        if (name.equals(input)) {
+            return 0;
+        } else if (name.startsWith(input)) {
+            return 1;
+        } else if (input.startsWith(name)) {
+            return 2;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Bit-parallel {@link #DAMERAU_LEVENSHTEIN_DISTANCE}. See {@link BitPattern}. Compiles the name on every call, so prefer keeping a {@link BitPattern} for names that are compared often.
+     */
+    protected static final Metric<String> BIT_PARALLEL_DISTANCE = (name, input) -> new BitPattern(name).distance(input, Integer.MAX_VALUE);
+
+    /**
+     * A name compiled for the bit-parallel edit distance algorithm by Myers (1999), with the transposition extension by Hyyro (2002).<br>
+     * It computes the same distance as {@link #damerauLevenshteinDistance(String, String, int)}, but with a handful of operations on a single {@code long} per input character
+     * instead of a row of cells. This requires the name (without its first character) to fit in 64 bits, and longer names fall back to the matrix algorithm.
+     */
+    protected static final class BitPattern {
+
+        /**
+         * The name.
+         */
+        private final @NotNull String name;
+
+        /**
+         * The distinct characters of the name (after its first character), or {@code null} if the name is too long for the bit-parallel algorithm.
+         */
+        private final char @Nullable [] characters;
+
+        /**
+         * Per {@link #characters character}, the bits of the positions in the name (after its first character) it occurs at.
+         */
+        private final long @Nullable [] masks;
+
+        /**
+         * Compile all {@link VCommandable#names() names} of a commandable.
+         * @param commandable the commandable
+         * @return the compiled names
+         */
+        static BitPattern @NotNull [] compile(@NotNull VCommandable commandable) {
+            List<String> names = commandable.names();
+            BitPattern[] patterns = new BitPattern[names.size()];
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = new BitPattern(names.get(i));
+            }
+            return patterns;
+        }
+
+        /**
+         * Compile a name.
+         * @param name the name
+         */
+        protected BitPattern(@NotNull String name) {
+            this.name = name;
+            int length = name.length() - 1;
+            if (length < 1 || length > Long.SIZE) {
+                characters = null;
+                masks = null;
+                return;
+            }
+            char[] found = new char[length];
+            long[] bits = new long[length];
+            int distinct = 0;
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i + 1);
+                int index = 0;
+                while (index < distinct && found[index] != c) {
+                    index++;
+                }
+                if (index == distinct) {
+                    found[distinct++] = c;
+                }
+                bits[index] |= 1L << i;
+            }
+            characters = Arrays.copyOf(found, distinct);
+            masks = Arrays.copyOf(bits, distinct);
+        }
+
+        /**
+         * The name this pattern was compiled from.
+         * @return the name
+         */
+        public @NotNull String name() {
+            return name;
+        }
+
+        /**
+         * Bounded distance between the name and an input.
+         * @param input the input
+         * @param bound the maximum distance of interest
+         * @return the distance if it is at most {@code bound}, and {@code bound + 1} otherwise
+         * @throws IllegalArgumentException if the name or the input is empty
+         */
+        public int distance(@NotNull String input, int bound) throws IllegalArgumentException {
+            if (characters == null || masks == null || input.length() < 2) {
+                return damerauLevenshteinDistance(name, input, bound);
             }
-        }).min();
 
-        // Null result
-        if (result.isEmpty()) {
-            throw new IllegalArgumentException("VCommandable argument has no names!");
+            int length = name.length() - 1;
+            long last = 1L << (length - 1);
+            long vp = length == Long.SIZE ? -1L : (1L << length) - 1;
+            long vn = 0;
+            long d0 = 0;
+            long previousEq = 0;
+            int score = length;
+            int remaining = input.length() - 1;
+
+            for (int j = 1; j < input.length(); j++) {
+                long eq = mask(input.charAt(j));
+                long transposition = ((~d0 & eq) << 1) & previousEq;
+                d0 = (((eq & vp) + vp) ^ vp) | eq | vn | transposition;
+                long hp = vn | ~(d0 | vp);
+                long hn = vp & d0;
+                if ((hp & last) != 0) {
+                    score++;
+                } else if ((hn & last) != 0) {
+                    score--;
+                }
+
+                // Every remaining character lowers the score by at most one
+                if (score - --remaining > bound) {
+                    return bound + 1;
+                }
+
+                long x = (hp << 1) | 1;
+                vn = x & d0;
+                vp = (hn << 1) | ~(x | d0);
+                previousEq = eq;
+            }
+            return score > bound ? bound + 1 : score;
+        }
+
+        /**
+         * The positions a character occurs at in the name.
+         * @param c the character
+         * @return the bits of the positions
+         */
+        private long mask(char c) {
+            for (int i = 0; i < characters.length; i++) {
+                if (characters[i] == c) {
+                    return masks[i];
+                }
+            }
+            return 0;
         }
+    }
 
-        return result.getAsInt();
-    };
+    /**
+     * Settings that configure which {@link IndexStrategy} is picked.
+     */
+    protected final EDictionary settings;
 
     /**
-     * BK-Tree (<a href="https://github.com/gtri/bk-tree">GitHub</a>) for {@link VCommandable} elements.
+     * Cache of {@link #searchPermitted(String, int, double, IndexStrategy.PermissionFilter) resolution} results, or {@code null} to always search.
      */
-    protected final MutableBkTree<VCommandable> bkTree = new MutableBkTree<>(DLD_EDICT_ADAPTER);
+    protected final @Nullable ResolutionCache cache;
 
     /**
-     * Searcher of the {@link #bkTree}.
+     * Create an empty indexer with default settings.
      */
-    protected final BkTreeSearcher<VCommandable> searcher = new BkTreeSearcher<>(bkTree);
+    public BKTreeIndexer() {
+        this(new EDictionary());
+    }
 
     /**
-     * Construct a tree indexer.
-     * @param values the values of the tree. Cannot be modified after. Should be all children of the class.
+     * Create an empty indexer without a cache.
+     * @param settings the settings that configure which {@link IndexStrategy} is picked
      */
-    public void addAll(Iterable<? extends VCommandable> values) {
-        bkTree.addAll(values);
+    public BKTreeIndexer(@NotNull EDictionary settings) {
+        this(settings, null);
+    }
+
+    /**
+     * Create an empty indexer.
+     * @param settings the settings that configure which {@link IndexStrategy} is picked
+     * @param cache the cache of resolution results, or {@code null} to always search
+     */
+    public BKTreeIndexer(@NotNull EDictionary settings, @Nullable ResolutionCache cache) {
+        this.settings = settings;
+        this.cache = cache;
+    }
+
+    /**
+     * All values, in the order they were added. Guarded by {@code this}.
+     */
+    protected final List<VCommandable> values = new ArrayList<>();
+
+    /**
+     * Snapshot of the index that is searched, picked by {@link IndexStrategy#of(List, EDictionary)} whenever values change.
+     * Modifications publish a new snapshot, so searches in progress keep reading a consistent index.
+     */
+    protected volatile IndexStrategy index = FrozenBKTree.EMPTY;
+
+    /**
+     * Add values to the tree. Values that are already in it are ignored.
+     * @param values the values to add
+     */
+    public synchronized void addAll(Iterable<? extends VCommandable> values) {
+        for (VCommandable value : values) {
+            if (!this.values.contains(value)) {
+                this.values.add(value);
+            }
+        }
+        reindex();
+    }
+
+    /**
+     * Add a value to the tree, unless it is already in it.
+     * @param value the value to add
+     */
+    public void add(@NotNull VCommandable value) {
+        addAll(List.of(value));
+    }
+
+    /**
+     * Remove a value from the tree.
+     * @param value the value to remove
+     * @return true if the value was in the tree
+     */
+    public boolean remove(@NotNull VCommandable value) {
+        return removeAll(List.of(value));
+    }
+
+    /**
+     * Remove values from the tree, reindexing the remaining values.
+     * @param values the values to remove
+     * @return true if any of the values were in the tree
+     */
+    public synchronized boolean removeAll(@NotNull Collection<? extends VCommandable> values) {
+        if (!this.values.removeAll(values)) {
+            return false;
+        }
+        reindex();
+        return true;
+    }
+
+    /**
+     * Publish a new index of the {@link #values}, and drop cached results of the old one. Must hold the lock on {@code this}.
+     */
+    private void reindex() {
+        IndexStrategy old = index;
+        index = IndexStrategy.of(values, settings);
+        if (cache != null) {
+            cache.invalidate(old);
+        }
+    }
+
+    /**
+     * The number of values in the tree.
+     * @return the size
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * The index that is currently searched.
+     * @return the index
+     */
+    public @NotNull IndexStrategy index() {
+        return index;
     }
 
     /**
@@ -123,28 +470,191 @@ public class BKTreeIndexer {
      * @param matchThreshold the percentage threshold
      * @param permissible function from a {@link VCommandable} to a boolean for whether the commandable can be run in current context
      * @param forceMax force return only matches with the highest value in set. Still respects {@code matchThreshold}.
+     *                 If the key is exactly the name or an alias of a permissible value, only those exact matches are returned, without searching the tree.
      * @return the best matching commandable objects (all with the same match value)
      */
     public @NotNull List<VCommandable> search(@NotNull String key, double matchThreshold, @NotNull Function<VCommandable, Boolean> permissible, boolean forceMax) {
+        return searchTopK(key, forceMax ? 1 : Integer.MAX_VALUE, matchThreshold, permissible).stream().map(Match::element).toList();
+    }
+
+    /**
+     * Search the tree for the {@code k} best matches of some key, without collecting every match within the threshold.
+     * The threshold is the percentage of the input string that has to match the name, like in {@link #search(String, double, Function, boolean)}.
+     * Matches with the same distance as the k-th best match are returned as well, so {@code k = 1} returns all equally likely solutions.
+     * @param key the key
+     * @param k the number of matches to return
+     * @param matchThreshold the percentage threshold
+     * @param permissible function from a {@link VCommandable} to a boolean for whether the commandable can be run in current context
+     * @return the best matches with their distance, from best to worst.
+     *         If the key is exactly the name or an alias of at least {@code k} permissible values, only those exact matches are returned, without searching the tree.
+     */
+    public @NotNull List<Match> searchTopK(@NotNull String key, int k, double matchThreshold, @NotNull Function<VCommandable, Boolean> permissible) {
+
+        IndexStrategy index = this.index;
+
+        // Exact matches are always the best, so skip the tree entirely.
+        if (!key.isBlank()) {
+            List<VCommandable> hits = index.exact(key);
+            if (hits != null) {
+                List<Match> permitted = hits.stream().filter(permissible::apply).map(hit -> new Match(hit, 0)).toList();
+                if (k > 0 && permitted.size() >= k) {
+                    return permitted;
+                }
+            }
+        }
 
         // Retrieve matches from tree.
-        Set<BkTreeSearcher.Match<? extends VCommandable>> matches = searcher.search(
-                new BKTreeIndexable(key, new String[0]),
-                (int) Math.round((key.length() * (1 - matchThreshold)))
-        );
+        return index.search(key, (int) Math.round((key.length() * (1 - matchThreshold))), k, permissible);
+    }
 
-        // Apply permissions
-        matches.removeIf(match -> !permissible.apply(match.getMatch()));
+    /**
+     * Search the tree for the {@code k} best matches of some key, like {@link #searchTopK(String, int, double, Function)},
+     * but checking the {@link VCommandable#permission() permission} of values instead of the values themselves.
+     * Each distinct permission is checked at most once, and only values with an allowed permission are returned.
+     * With a {@link ResolutionCache}, all matches within the threshold are cached instead, and permissions are checked on the cached matches.
+     * @param key the key
+     * @param k the number of matches to return
+     * @param matchThreshold the percentage threshold
+     * @param filter filter for whether a permission is allowed in current context, e.g. {@code user::hasPermission}
+     * @return the best matches with their distance, from best to worst
+     */
+    public @NotNull List<Match> searchPermitted(@NotNull String key, int k, double matchThreshold, @NotNull IndexStrategy.PermissionFilter filter) {
+
+        // Share checked permissions between the exact matches and the tree
+        Map<Permission, Boolean> checked = new HashMap<>();
+        IndexStrategy.PermissionFilter cached = permission -> checked.computeIfAbsent(permission, filter::allows);
+        IndexStrategy index = this.index;
+
+        // Exact matches are always the best, so skip the tree entirely.
+        if (!key.isBlank()) {
+            List<VCommandable> hits = index.exact(key);
+            if (hits != null) {
+                List<Match> permitted = hits.stream().filter(hit -> cached.allows(hit.permission())).map(hit -> new Match(hit, 0)).toList();
+                if (k > 0 && permitted.size() >= k) {
+                    return permitted;
+                }
+            }
+        }
 
-        // Find best match(es) if any.
-        if (matches.isEmpty()) {
-            return new ArrayList<>();
-        } else {
-            if (forceMax) {
-                int bestMatch = matches.stream().mapToInt(BkTreeSearcher.Match::getDistance).min().orElse(-1);
-                return matches.stream().filter(match -> match.getDistance() == bestMatch).map(match -> (VCommandable) match.getMatch()).toList();
-            } else {
-                return matches.stream().map(m -> (VCommandable) m.getMatch()).toList();
+        int radius = (int) Math.round((key.length() * (1 - matchThreshold)));
+        if (cache == null || k < 1 || key.isBlank()) {
+
+            // Retrieve matches from tree.
+            return index.searchPermitted(key, radius, k, cached);
+        }
+
+        // Filter all cached matches within the radius, which are sorted, down to the k best permitted ones
+        List<Match> permitted = new ArrayList<>();
+        for (Match match : cache.get(index, key, radius, () -> index.search(key, radius, Integer.MAX_VALUE, (a) -> true))) {
+            if (permitted.size() >= k && match.distance() > permitted.get(k - 1).distance()) {
+                break;
+            }
+            if (cached.allows(match.element().permission())) {
+                permitted.add(match);
+            }
+        }
+        return permitted;
+    }
+
+    /**
+     * Search for the {@code k} best completions of a partially typed key.
+     * Values with a name that starts with the key are looked up in the {@link IndexStrategy#prefixes() prefix trie} and preferred,
+     * with distance 0 for an exact name (or a blank key) and 1 otherwise, like {@link #DLD_EDICT_ADAPTER}.
+     * Only if no permitted value starts with the key is a fuzzy {@link #searchPermitted(String, int, double, IndexStrategy.PermissionFilter) search} done.
+     * @param key the key
+     * @param k the number of matches to return. Matches tied with the k-th best match are returned as well.
+     * @param matchThreshold the percentage threshold, for the fuzzy search
+     * @param filter filter for whether a permission is allowed in current context, e.g. {@code user::hasPermission}
+     * @return the best matches with their distance, from best to worst
+     */
+    public @NotNull List<Match> searchCompletions(@NotNull String key, int k, double matchThreshold, @NotNull IndexStrategy.PermissionFilter filter) {
+        Map<Permission, Boolean> checked = new HashMap<>();
+        IndexStrategy index = this.index;
+        List<Match> completions = new ArrayList<>();
+        for (VCommandable value : index.prefixes().prefixed(key)) {
+            if (!checked.computeIfAbsent(value.permission(), filter::allows)) {
+                continue;
+            }
+            int distance = key.isBlank() ? 0 : 1;
+            for (String name : value.names()) {
+                if (name.equals(key)) {
+                    distance = 0;
+                    break;
+                }
+            }
+            completions.add(new Match(value, distance));
+        }
+        if (completions.isEmpty()) {
+            return index.searchPermitted(key, (int) Math.round((key.length() * (1 - matchThreshold))), k, permission -> checked.computeIfAbsent(permission, filter::allows));
+        }
+
+        // Prefixed lists exact matches first, so the k-th completion has the worst distance that is kept
+        if (k < 1) {
+            return List.of();
+        }
+        if (completions.size() > k) {
+            int bound = completions.get(k - 1).distance();
+            completions.removeIf(match -> match.distance() > bound);
+        }
+        return completions;
+    }
+
+    /**
+     * A search result.
+     * @param element the matching element
+     * @param distance the distance between the element and the key. Lower is better, and 0 is an exact match.
+     */
+    public record Match(@NotNull VCommandable element, int distance) {}
+
+    /**
+     * Node of the BK-tree while it is being built.
+     */
+    protected static final class Node {
+
+        /**
+         * The element of this node.
+         */
+        final @NotNull VCommandable element;
+
+        /**
+         * Children by their distance to the {@link #element}.
+         */
+        final Map<Integer, Node> children = new HashMap<>();
+
+        /**
+         * The largest distance in {@link #children}, or 0 if there are none.
+         */
+        int maxEdge;
+
+        /**
+         * Compiled {@link VCommandable#names() names} of the {@link #element}.
+         */
+        final BitPattern @NotNull [] patterns;
+
+        /**
+         * Create a new node.
+         * @param element the element
+         */
+        Node(@NotNull VCommandable element) {
+            this.element = element;
+            this.patterns = BitPattern.compile(element);
+        }
+
+        /**
+         * Add a value to the tree below this node, unless it is already in it.
+         * @param value the value
+         */
+        void insert(@NotNull VCommandable value) {
+            Node node = this;
+            while (!node.element.equals(value)) {
+                int distance = DLD_EDICT_ADAPTER.distance(node.element, value);
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    node.children.put(distance, new Node(value));
+                    node.maxEdge = Math.max(node.maxEdge, distance);
+                    return;
+                }
+                node = child;
             }
         }
     }
@@ -165,6 +675,11 @@ public class BKTreeIndexer {
             return aliases;
         }
 
+        @Override
+        public @NotNull List<String> names() {
+            return VCommandable.nameTable(name, aliases);
+        }
+
         /**
          * Parent commandable.
          *
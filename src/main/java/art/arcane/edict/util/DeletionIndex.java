@@ -0,0 +1,225 @@
+package art.arcane.edict.util;
+
+import art.arcane.edict.permission.Permission;
+import art.arcane.edict.virtual.VCommandable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable deletion-neighbourhood index in the style of SymSpell (see <a href="https://github.com/wolfgarbe/SymSpell">SymSpell</a>), for very many elements.<br>
+ * Every string within a Damerau-Levenshtein (optimal string alignment) distance {@code d} of another shares a string with it that is at most {@code d} deletions away from both.
+ * So all deletions of each name are precomputed, and candidates for a key are the elements that share a deletion with it. Only those candidates are verified with the metric.<br>
+ * Names are stored without their first character, like {@link BKTreeIndexer#damerauLevenshteinDistance(String, String)} compares them.
+ * Prefix matches are found with a {@link PrefixTrie} instead, since their distance does not depend on their length.<br>
+ * Distances beyond the {@link #maxDistance} of the index are not found, regardless of the radius of a search.
+ */
+public final class DeletionIndex implements IndexStrategy {
+
+    /**
+     * The largest number of deletions precomputed per name.
+     */
+    public static final int MAX_DISTANCE = 2;
+
+    /**
+     * The elements.
+     */
+    private final VCommandable @NotNull [] elements;
+
+    /**
+     * Compiled {@link VCommandable#names() names} per element.
+     */
+    private final BKTreeIndexer.BitPattern @NotNull [] @NotNull [] patterns;
+
+    /**
+     * Trie of the {@link VCommandable#names() names} of the elements.
+     */
+    private final PrefixTrie prefixes;
+
+    /**
+     * Elements per deletion of their names (without the first character).
+     */
+    private final Map<String, int[]> deletions;
+
+    /**
+     * The number of deletions precomputed per name.
+     */
+    private final int maxDistance;
+
+    /**
+     * Index elements.
+     * @param elements the elements, without duplicates
+     * @param maxDistance the number of deletions to precompute per name
+     * @param deletions the deletions of the names, from {@link #deletions(VCommandable[], int, long)}
+     */
+    private DeletionIndex(VCommandable @NotNull [] elements, int maxDistance, @NotNull Map<String, int[]> deletions) {
+        this.elements = elements;
+        this.maxDistance = maxDistance;
+        this.deletions = deletions;
+        this.patterns = new BKTreeIndexer.BitPattern[elements.length][];
+        for (int i = 0; i < elements.length; i++) {
+            patterns[i] = BKTreeIndexer.BitPattern.compile(elements[i]);
+        }
+        this.prefixes = new PrefixTrie(elements);
+    }
+
+    /**
+     * Index elements, with as many deletions per name as fit in a budget.
+     * @param elements the elements, without duplicates
+     * @param budget the maximum number of precomputed deletions
+     * @return the index, or {@code null} if not even a single deletion per name fits in the budget
+     */
+    public static @Nullable DeletionIndex of(@NotNull List<VCommandable> elements, long budget) {
+        VCommandable[] array = elements.toArray(VCommandable[]::new);
+        for (int distance = MAX_DISTANCE; distance > 0; distance--) {
+            Map<String, int[]> deletions = deletions(array, distance, budget);
+            if (deletions != null) {
+                return new DeletionIndex(array, distance, deletions);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Precompute the deletions of all names of elements.
+     * @param elements the elements
+     * @param distance the number of deletions per name
+     * @param budget the maximum number of deletions
+     * @return elements per deletion, or {@code null} if there are more than {@code budget} deletions
+     */
+    private static @Nullable Map<String, int[]> deletions(VCommandable @NotNull [] elements, int distance, long budget) {
+        Map<String, int[]> deletions = new HashMap<>();
+        long entries = 0;
+        for (int i = 0; i < elements.length; i++) {
+            Set<String> own = new HashSet<>();
+            for (String name : elements[i].names()) {
+                deletions(name.substring(1), distance, own);
+            }
+            entries += own.size();
+            if (entries > budget) {
+                return null;
+            }
+            for (String deletion : own) {
+                int[] owners = deletions.get(deletion);
+                if (owners == null) {
+                    deletions.put(deletion, new int[]{i});
+                } else {
+                    owners = Arrays.copyOf(owners, owners.length + 1);
+                    owners[owners.length - 1] = i;
+                    deletions.put(deletion, owners);
+                }
+            }
+        }
+        return deletions;
+    }
+
+    /**
+     * Collect a string and all strings that are at most some number of deletions away from it.
+     * @param string the string
+     * @param distance the number of deletions
+     * @param into the set to collect into
+     */
+    private static void deletions(@NotNull String string, int distance, @NotNull Set<String> into) {
+        if (!into.add(string) || distance == 0) {
+            return;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            deletions(string.substring(0, i) + string.substring(i + 1), distance - 1, into);
+        }
+    }
+
+    /**
+     * The number of deletions precomputed per name, which is also the largest distance that can be found.
+     * @return the maximum distance
+     */
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    @Override
+    public @NotNull String name() {
+        return "deletion-" + maxDistance;
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public @NotNull PrefixTrie prefixes() {
+        return prefixes;
+    }
+
+    @Override
+    public @NotNull List<BKTreeIndexer.Match> search(@NotNull String key, int radius, int k, @NotNull Function<VCommandable, Boolean> permissible) {
+        return collect(key, radius, k, element -> permissible.apply(elements[element]));
+    }
+
+    @Override
+    public @NotNull List<BKTreeIndexer.Match> searchPermitted(@NotNull String key, int radius, int k, @NotNull PermissionFilter filter) {
+        Map<Permission, Boolean> allowed = new HashMap<>();
+        return collect(key, radius, k, element -> allowed.computeIfAbsent(elements[element].permission(), filter::allows));
+    }
+
+    /**
+     * Find the best elements within a distance of a key, that pass a filter.
+     * @param key the key
+     * @param radius the maximum distance
+     * @param k the number of matches to return. Matches tied with the k-th best match are returned as well.
+     * @param filter the filter, by index of the element
+     * @return the matches, from best to worst, and in order of the elements among equal distances
+     */
+    private @NotNull List<BKTreeIndexer.Match> collect(@NotNull String key, int radius, int k, @NotNull IntPredicate filter) {
+        MatchCollector matches = new MatchCollector(radius, k, elements.length);
+        if (k < 1 || radius < 0) {
+            return matches.matches();
+        }
+
+        BitSet candidates = new BitSet(elements.length);
+        if (key.isBlank()) {
+            candidates.set(0, elements.length);
+        } else {
+
+            // Names the key is a prefix of
+            if (radius >= 1) {
+                prefixes.forEachPrefixed(key, candidates::set);
+            }
+
+            // Names that are a prefix of the key
+            prefixes.forEachPrefixOf(key, candidates::set);
+
+            // Names that share a deletion with the key
+            Set<String> own = new HashSet<>();
+            deletions(key.substring(1), Math.min(radius, maxDistance), own);
+            for (String deletion : own) {
+                int[] owners = deletions.get(deletion);
+                if (owners != null) {
+                    for (int owner : owners) {
+                        candidates.set(owner);
+                    }
+                }
+            }
+        }
+
+        for (int element = candidates.nextSetBit(0); element >= 0; element = candidates.nextSetBit(element + 1)) {
+            if (!filter.test(element)) {
+                continue;
+            }
+            int distance = BKTreeIndexer.distance(patterns[element], key, matches.radius());
+            if (distance <= matches.radius()) {
+                matches.add(elements[element], distance);
+            }
+        }
+        return matches.matches();
+    }
+}
@@ -36,4 +36,57 @@ public class EDictionary implements Edicted {
      * Timeout for multiple-option picking (multiplied by {@link #optionPickAttempts} if all tries timeout).
      */
     public int optionPickTimeout;
+
+    /**
+     * Number of commands a user can send at once before being rate limited. 0 or lower disables rate limiting.
+     */
+    public int rateLimitBurst = 0;
+
+    /**
+     * Number of commands per second a user regains after sending a burst.
+     */
+    public double rateLimitPerSecond = 5;
+
+    /**
+     * Maximum number of milliseconds a rate limited command is delayed by, instead of being rejected. 0 always rejects.
+     * Commands that are forced to run sync are never delayed, and are always rejected.
+     */
+    public long rateLimitMaxDelay = 0;
+
+    /**
+     * Default number of milliseconds after which commands time out, for commands that do not specify {@link Command#timeoutMillis()}. 0 never times out.
+     */
+    public long commandTimeout = 0;
+
+    /**
+     * Number of milliseconds to wait for more keystrokes before computing suggestions for a user. 0 computes right away.
+     * Newer input always supersedes older pending input of the same user, regardless of this setting.
+     */
+    public long suggestionDebounce = 0;
+
+    /**
+     * Maximum number of matching commands to follow per word of input when suggesting. Commands tied with the last one are followed as well, so 1 only follows the best matches.
+     */
+    public int suggestionMatches = 3;
+
+    /**
+     * Number of names (including aliases) from which a category is indexed with a {@link DeletionIndex} instead of a BK-tree.
+     */
+    public int deletionIndexNames = 2000;
+
+    /**
+     * Maximum number of precomputed deletions per {@link DeletionIndex}. Categories that do not fit use a BK-tree instead.
+     */
+    public long deletionIndexBudget = 2_000_000;
+
+    /**
+     * Maximum number of fuzzy command resolution results cached across all categories, see {@link ResolutionCache}. 0 disables the cache.
+     */
+    public int resolutionCacheSize = 1024;
+
+    /**
+     * Whether to build the command trees of roots and subcategories, and their indexers, in parallel at startup. The resulting tree is the same either way.
+     * The permission factory and handlers are then called from multiple threads.
+     */
+    public boolean parallelBuild = false;
 }
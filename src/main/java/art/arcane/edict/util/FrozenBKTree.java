@@ -0,0 +1,347 @@
+package art.arcane.edict.util;
+
+import art.arcane.edict.permission.Permission;
+import art.arcane.edict.virtual.VCommandable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable BK-tree (see <a href="https://en.wikipedia.org/wiki/BK-tree">Wikipedia - BK-tree</a>) of {@link VCommandable} elements, stored in flat arrays.<br>
+ * Nodes are numbered in depth-first preorder, starting at the root (0), so children always come after their parent.
+ * The edges of a node are stored contiguously, sorted by distance, from {@link #edgeStart} up to the {@link #edgeStart} of the next node.
+ * The traversal stack is reused per thread, so a search only allocates a fixed amount of bookkeeping (its node filter and match collector,
+ * plus one byte per distinct permission when searching by permission) besides the matches it returns, regardless of how many nodes it visits.
+ */
+public final class FrozenBKTree implements IndexStrategy {
+
+    /**
+     * The tree without any nodes.
+     */
+    static final FrozenBKTree EMPTY = new FrozenBKTree(null);
+
+    /**
+     * Per-thread stack of node indices for {@link #search}.
+     */
+    private static final ThreadLocal<int[]> STACK = ThreadLocal.withInitial(() -> new int[64]);
+
+    /**
+     * Bit of {@link Permissions#subtree} for permissions that do not have a bit of their own.
+     */
+    private static final long OVERFLOW = 1L << (Long.SIZE - 1);
+
+    /**
+     * Element per node.
+     */
+    private final VCommandable @NotNull [] elements;
+
+    /**
+     * Compiled {@link VCommandable#names() names} per node.
+     */
+    private final BKTreeIndexer.BitPattern @NotNull [] @NotNull [] patterns;
+
+    /**
+     * Largest edge distance per node, or 0 if it has no children.
+     */
+    private final int @NotNull [] maxEdge;
+
+    /**
+     * Index of the first edge per node, with one extra entry holding the total number of edges.
+     */
+    private final int @NotNull [] edgeStart;
+
+    /**
+     * Distance per edge.
+     */
+    private final int @NotNull [] edgeDistance;
+
+    /**
+     * Child node per edge.
+     */
+    private final int @NotNull [] edgeTarget;
+
+    /**
+     * Trie of the {@link VCommandable#names() names} of the elements.
+     */
+    private final PrefixTrie prefixes;
+
+    /**
+     * The permissions of the elements, computed on the first {@link #searchPermitted(String, int, int, PermissionFilter) permission search}.
+     * Elements are not required to have a permission if they are only searched with element predicates.
+     */
+    private volatile Permissions permissions;
+
+    /**
+     * Freeze a tree.
+     * @param root the root of the tree, or {@code null} if empty
+     */
+    FrozenBKTree(BKTreeIndexer.Node root) {
+        List<BKTreeIndexer.Node> nodes = new ArrayList<>();
+        if (root != null) {
+            Deque<BKTreeIndexer.Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                BKTreeIndexer.Node node = stack.pop();
+                nodes.add(node);
+                node.children.entrySet().stream()
+                        .sorted(Map.Entry.<Integer, BKTreeIndexer.Node>comparingByKey().reversed())
+                        .forEach(child -> stack.push(child.getValue()));
+            }
+        }
+
+        int size = nodes.size();
+        elements = new VCommandable[size];
+        patterns = new BKTreeIndexer.BitPattern[size][];
+        maxEdge = new int[size];
+        edgeStart = new int[size + 1];
+        edgeDistance = new int[Math.max(0, size - 1)];
+        edgeTarget = new int[Math.max(0, size - 1)];
+
+        Map<BKTreeIndexer.Node, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            index.put(nodes.get(i), i);
+        }
+
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            BKTreeIndexer.Node node = nodes.get(i);
+            elements[i] = node.element;
+            patterns[i] = node.patterns;
+            maxEdge[i] = node.maxEdge;
+            edgeStart[i] = edges;
+            for (Map.Entry<Integer, BKTreeIndexer.Node> child : node.children.entrySet().stream().sorted(Map.Entry.comparingByKey()).toList()) {
+                edgeDistance[edges] = child.getKey();
+                edgeTarget[edges] = index.get(child.getValue());
+                edges++;
+            }
+        }
+        edgeStart[size] = edges;
+        prefixes = new PrefixTrie(elements);
+    }
+
+    /**
+     * Build a tree.
+     * @param elements the elements, without duplicates
+     * @return the tree
+     */
+    public static @NotNull FrozenBKTree of(@NotNull List<VCommandable> elements) {
+        BKTreeIndexer.Node root = null;
+        for (VCommandable element : elements) {
+            if (root == null) {
+                root = new BKTreeIndexer.Node(element);
+            } else {
+                root.insert(element);
+            }
+        }
+        return new FrozenBKTree(root);
+    }
+
+    @Override
+    public @NotNull String name() {
+        return "bk-tree";
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public @NotNull PrefixTrie prefixes() {
+        return prefixes;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * Impermissible elements are still measured to prune their children, so the matches are the permissible part of an unfiltered search.
+     * Matches with equal distances are in preorder.
+     */
+    @Override
+    public @NotNull List<BKTreeIndexer.Match> search(@NotNull String key, int radius, int k, @NotNull Function<VCommandable, Boolean> permissible) {
+        return search(key, radius, k, new NodeFilter() {
+            @Override
+            public boolean node(int node) {
+                return permissible.apply(elements[node]);
+            }
+
+            @Override
+            public boolean subtree(int node) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * Subtrees without any allowed permission are skipped entirely, and other impermissible elements are still measured to prune their children.
+     * Matches with equal distances are in preorder.
+     */
+    @Override
+    public @NotNull List<BKTreeIndexer.Match> searchPermitted(@NotNull String key, int radius, int k, @NotNull PermissionFilter filter) {
+        if (elements.length == 0) {
+            return new ArrayList<>();
+        }
+        Permissions permissions = permissions();
+
+        // Per distinct permission: 0 if not checked yet, 1 if allowed and -1 if not
+        byte[] allowed = new byte[permissions.distinct.length];
+        return search(key, radius, k, new NodeFilter() {
+            @Override
+            public boolean node(int node) {
+                return allowed(permissions.ids[node]);
+            }
+
+            @Override
+            public boolean subtree(int node) {
+                long mask = permissions.subtree[node];
+                if ((mask & OVERFLOW) != 0) {
+                    return true;
+                }
+                for (; mask != 0; mask &= mask - 1) {
+                    if (allowed(Long.numberOfTrailingZeros(mask))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            private boolean allowed(int id) {
+                if (allowed[id] == 0) {
+                    allowed[id] = filter.allows(permissions.distinct[id]) ? (byte) 1 : (byte) -1;
+                }
+                return allowed[id] > 0;
+            }
+        });
+    }
+
+    /**
+     * Find the best elements of the tree within a distance of a key, that pass a filter.<br>
+     * The distance to each node is bounded by the radius plus its largest child edge, since beyond that, neither the node nor any of its children can match.
+     * Children are always pruned by the full radius, not by the shrinking radius of the {@link MatchCollector},
+     * since {@link BKTreeIndexer#DLD_EDICT_ADAPTER} is not a true metric and a smaller radius could prune away matches that a full search finds.
+     * @param key the key
+     * @param radius the maximum distance
+     * @param k the number of matches to return. Matches tied with the k-th best match are returned as well.
+     * @param filter the filter
+     * @return the matches, from best to worst, and in preorder among equal distances
+     */
+    private @NotNull List<BKTreeIndexer.Match> search(@NotNull String key, int radius, int k, @NotNull NodeFilter filter) {
+        MatchCollector matches = new MatchCollector(radius, k, elements.length);
+        if (elements.length == 0 || k < 1) {
+            return matches.matches();
+        }
+
+        int[] stack = STACK.get();
+        if (stack.length < elements.length) {
+            stack = new int[Math.max(elements.length, stack.length * 2)];
+            STACK.set(stack);
+        }
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!filter.subtree(node)) {
+                continue;
+            }
+
+            int distance = BKTreeIndexer.distance(patterns[node], key, radius + maxEdge[node]);
+            if (distance <= matches.radius() && filter.node(node)) {
+                matches.add(elements[node], distance);
+            }
+
+            // Push in reverse so children are visited in order of distance
+            for (int e = edgeStart[node + 1] - 1; e >= edgeStart[node]; e--) {
+                if (Math.abs(edgeDistance[e] - distance) <= radius) {
+                    stack[top++] = edgeTarget[e];
+                }
+            }
+        }
+        return matches.matches();
+    }
+
+    /**
+     * Get the {@link #permissions}, computing them if needed.
+     * @return the permissions
+     */
+    private @NotNull Permissions permissions() {
+        Permissions permissions = this.permissions;
+        if (permissions == null) {
+            permissions = new Permissions(this);
+            this.permissions = permissions;
+        }
+        return permissions;
+    }
+
+    /**
+     * Filter of nodes during a search.
+     */
+    private interface NodeFilter {
+
+        /**
+         * Whether the element of a node may be matched.
+         * @param node the node
+         * @return true if it may be matched
+         */
+        boolean node(int node);
+
+        /**
+         * Whether any element in the subtree of a node may be matched. Is checked before {@link #node(int)}.
+         * @param node the node
+         * @return false if no element in the subtree may be matched
+         */
+        boolean subtree(int node);
+    }
+
+    /**
+     * The distinct permissions of the elements of a tree.
+     */
+    private static final class Permissions {
+
+        /**
+         * The distinct permissions, in preorder of the first node that has them.
+         */
+        private final Permission @NotNull [] distinct;
+
+        /**
+         * Index in {@link #distinct} per node.
+         */
+        private final int @NotNull [] ids;
+
+        /**
+         * Per node, a mask with the bit of each id in its subtree. Ids from 63 up share the {@link #OVERFLOW} bit.
+         */
+        private final long @NotNull [] subtree;
+
+        /**
+         * Collect the permissions of a tree.
+         * @param tree the tree
+         */
+        private Permissions(@NotNull FrozenBKTree tree) {
+            int size = tree.elements.length;
+            Map<Permission, Integer> index = new HashMap<>();
+            ids = new int[size];
+            subtree = new long[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = index.computeIfAbsent(tree.elements[i].permission(), permission -> index.size());
+            }
+            distinct = new Permission[index.size()];
+            index.forEach((permission, id) -> distinct[id] = permission);
+
+            // Children come after their parent in preorder, so walk backwards to combine subtrees
+            for (int i = size - 1; i >= 0; i--) {
+                subtree[i] = ids[i] < Long.SIZE - 1 ? 1L << ids[i] : OVERFLOW;
+                for (int e = tree.edgeStart[i]; e < tree.edgeStart[i + 1]; e++) {
+                    subtree[i] |= subtree[tree.edgeTarget[e]];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package art.arcane.edict.util;
+
+import art.arcane.edict.permission.Permission;
+import art.arcane.edict.virtual.VCommandable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable index of {@link VCommandable} elements, searched by {@link BKTreeIndexer}.<br>
+ * Which index is used depends on the number of names of the elements, see {@link #of(List, EDictionary)}.
+ */
+public interface IndexStrategy {
+
+    /**
+     * Up to this number of {@link VCommandable#names() names}, scanning all of them is cheaper than any tree.
+     */
+    int LINEAR_MAX_NAMES = 16;
+
+    /**
+     * Pick and build the index for some elements.
+     * @param elements the elements, without duplicates
+     * @param settings the settings that configure the {@link DeletionIndex}
+     * @return a {@link LinearIndex} if the elements have at most {@link #LINEAR_MAX_NAMES} names,
+     *         a {@link DeletionIndex} if they have at least {@link EDictionary#deletionIndexNames} and it fits in the {@link EDictionary#deletionIndexBudget},
+     *         and a {@link FrozenBKTree} otherwise
+     */
+    static @NotNull IndexStrategy of(@NotNull List<VCommandable> elements, @NotNull EDictionary settings) {
+        int names = 0;
+        for (VCommandable element : elements) {
+            names += element.names().size();
+        }
+        if (names <= LINEAR_MAX_NAMES) {
+            return new LinearIndex(elements);
+        }
+        if (names >= settings.deletionIndexNames) {
+            DeletionIndex index = DeletionIndex.of(elements, settings.deletionIndexBudget);
+            if (index != null) {
+                return index;
+            }
+        }
+        return FrozenBKTree.of(elements);
+    }
+
+    /**
+     * Name of the strategy, as shown in the network string.
+     * @return the name
+     */
+    @NotNull String name();
+
+    /**
+     * The number of elements in the index.
+     * @return the size
+     */
+    int size();
+
+    /**
+     * Trie of the {@link VCommandable#names() names} of the elements in the index.
+     * @return the trie
+     */
+    @NotNull PrefixTrie prefixes();
+
+    /**
+     * The elements that have a key as {@link VCommandable#names() name} or alias.
+     * @param key the key
+     * @return the elements, or {@code null} if there are none
+     */
+    default @Nullable List<VCommandable> exact(@NotNull String key) {
+        return prefixes().exact(key);
+    }
+
+    /**
+     * Find the best permissible elements within a distance of a key.
+     * Only permissible elements are returned. Elements may be measured before their permission is checked.
+     * @param key the key
+     * @param radius the maximum distance
+     * @param k the number of matches to return. Matches tied with the k-th best match are returned as well.
+     * @param permissible function from a {@link VCommandable} to a boolean for whether the commandable can be run in current context
+     * @return the matches, from best to worst
+     */
+    @NotNull List<BKTreeIndexer.Match> search(@NotNull String key, int radius, int k, @NotNull Function<VCommandable, Boolean> permissible);
+
+    /**
+     * Find the best elements within a distance of a key, that the filter allows the {@link VCommandable#permission() permission} of.
+     * Each distinct permission is checked at most once per search, and only elements with an allowed permission are returned.
+     * @param key the key
+     * @param radius the maximum distance
+     * @param k the number of matches to return. Matches tied with the k-th best match are returned as well.
+     * @param filter the permission filter
+     * @return the matches, from best to worst
+     */
+    @NotNull List<BKTreeIndexer.Match> searchPermitted(@NotNull String key, int radius, int k, @NotNull PermissionFilter filter);
+
+    /**
+     * Filter for whether a {@link Permission} is allowed, for example {@code User::hasPermission}.
+     */
+    @FunctionalInterface
+    interface PermissionFilter {
+
+        /**
+         * Whether a permission is allowed.
+         * @param permission the permission
+         * @return true if allowed
+         */
+        boolean allows(@NotNull Permission permission);
+    }
+}
@@ -0,0 +1,102 @@
+package art.arcane.edict.util;
+
+import art.arcane.edict.permission.Permission;
+import art.arcane.edict.virtual.VCommandable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable index that compares a key to every element, for few elements.<br>
+ * Unlike a {@link FrozenBKTree}, it never prunes, so it always finds the best matches, and it keeps no tree structure besides the compiled names of each element.
+ */
+public final class LinearIndex implements IndexStrategy {
+
+    /**
+     * The elements.
+     */
+    private final VCommandable @NotNull [] elements;
+
+    /**
+     * Compiled {@link VCommandable#names() names} per element.
+     */
+    private final BKTreeIndexer.BitPattern @NotNull [] @NotNull [] patterns;
+
+    /**
+     * Trie of the {@link VCommandable#names() names} of the elements.
+     */
+    private final PrefixTrie prefixes;
+
+    /**
+     * Index elements.
+     * @param elements the elements, without duplicates
+     */
+    public LinearIndex(@NotNull List<VCommandable> elements) {
+        this.elements = elements.toArray(VCommandable[]::new);
+        this.patterns = new BKTreeIndexer.BitPattern[this.elements.length][];
+        for (int i = 0; i < this.elements.length; i++) {
+            patterns[i] = BKTreeIndexer.BitPattern.compile(this.elements[i]);
+        }
+        this.prefixes = new PrefixTrie(this.elements);
+    }
+
+    @Override
+    public @NotNull String name() {
+        return "linear";
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public @NotNull PrefixTrie prefixes() {
+        return prefixes;
+    }
+
+    @Override
+    public @NotNull List<BKTreeIndexer.Match> search(@NotNull String key, int radius, int k, @NotNull Function<VCommandable, Boolean> permissible) {
+        MatchCollector matches = new MatchCollector(radius, k, elements.length);
+        if (k < 1) {
+            return matches.matches();
+        }
+        for (int i = 0; i < elements.length; i++) {
+            if (permissible.apply(elements[i])) {
+                match(i, key, matches);
+            }
+        }
+        return matches.matches();
+    }
+
+    @Override
+    public @NotNull List<BKTreeIndexer.Match> searchPermitted(@NotNull String key, int radius, int k, @NotNull PermissionFilter filter) {
+        MatchCollector matches = new MatchCollector(radius, k, elements.length);
+        if (k < 1) {
+            return matches.matches();
+        }
+        Map<Permission, Boolean> allowed = new HashMap<>();
+        for (int i = 0; i < elements.length; i++) {
+            if (allowed.computeIfAbsent(elements[i].permission(), filter::allows)) {
+                match(i, key, matches);
+            }
+        }
+        return matches.matches();
+    }
+
+    /**
+     * Collect an element if it is within the radius of a key.
+     * @param element the index of the element
+     * @param key the key
+     * @param matches the collector
+     */
+    private void match(int element, @NotNull String key, @NotNull MatchCollector matches) {
+        int distance = BKTreeIndexer.distance(patterns[element], key, matches.radius());
+        if (distance <= matches.radius()) {
+            matches.add(elements[element], distance);
+        }
+    }
+}
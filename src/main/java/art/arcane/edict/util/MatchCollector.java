@@ -0,0 +1,140 @@
+package art.arcane.edict.util;
+
+import art.arcane.edict.virtual.VCommandable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the best matches of a search, for {@link IndexStrategy index strategies}.<br>
+ * Once {@code k} matches are collected, the {@link #radius()} shrinks to the distance of the k-th best match so far, using a bounded max-heap of distances.
+ * Matches tied with the k-th best match are kept.
+ */
+final class MatchCollector {
+
+    /**
+     * The number of matches to collect.
+     */
+    private final int k;
+
+    /**
+     * Max-heap of the k best distances, or {@code null} if all elements may be collected.
+     */
+    private final int[] heap;
+
+    /**
+     * The number of distances in the {@link #heap}.
+     */
+    private int heapSize;
+
+    /**
+     * The maximum distance of matches that are still of interest.
+     */
+    private int radius;
+
+    /**
+     * The matches so far, which may include matches beyond the current {@link #radius}.
+     */
+    private final List<BKTreeIndexer.Match> matches = new ArrayList<>();
+
+    /**
+     * Create a new collector.
+     * @param radius the maximum distance
+     * @param k the number of matches to collect
+     * @param size the number of elements that may be collected
+     */
+    MatchCollector(int radius, int k, int size) {
+        this.radius = radius;
+        this.k = k;
+        this.heap = k < size ? new int[k] : null;
+    }
+
+    /**
+     * The maximum distance of matches that are still of interest.
+     * @return the radius
+     */
+    int radius() {
+        return radius;
+    }
+
+    /**
+     * Collect a match.
+     * @param element the element
+     * @param distance the distance, at most the {@link #radius()}
+     */
+    void add(@NotNull VCommandable element, int distance) {
+        matches.add(new BKTreeIndexer.Match(element, distance));
+        if (heap == null) {
+            return;
+        }
+        if (heapSize < k) {
+            heap[heapSize] = distance;
+            siftUp(heapSize++);
+        } else if (distance < heap[0]) {
+            heap[0] = distance;
+            siftDown();
+        }
+        if (heapSize == k && heap[0] < radius) {
+            radius = heap[0];
+            if (matches.size() >= 2 * k) {
+                int bound = radius;
+                matches.removeIf(match -> match.distance() > bound);
+            }
+        }
+    }
+
+    /**
+     * The collected matches.
+     * @return the matches within the final {@link #radius()}, from best to worst, and in order of collection among equal distances
+     */
+    @NotNull List<BKTreeIndexer.Match> matches() {
+        int bound = radius;
+        matches.removeIf(match -> match.distance() > bound);
+        matches.sort(Comparator.comparingInt(BKTreeIndexer.Match::distance));
+        return matches;
+    }
+
+    /**
+     * Restore the max-heap property after adding an entry.
+     * @param index the index of the added entry
+     */
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] >= heap[index]) {
+                return;
+            }
+            int swap = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = swap;
+            index = parent;
+        }
+    }
+
+    /**
+     * Restore the max-heap property after lowering the root.
+     */
+    private void siftDown() {
+        int index = 0;
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && heap[left] > heap[largest]) {
+                largest = left;
+            }
+            if (right < heapSize && heap[right] > heap[largest]) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            int swap = heap[largest];
+            heap[largest] = heap[index];
+            heap[index] = swap;
+            index = largest;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package art.arcane.edict.util;
+
+/**
+ * A distance function between two elements, as used by the {@link BKTreeIndexer}.
+ * @param <T> the type of the elements
+ */
+@FunctionalInterface
+public interface Metric<T> {
+
+    /**
+     * The distance between two elements.
+     * @param x the first element
+     * @param y the second element
+     * @return the distance, at least 0
+     */
+    int distance(T x, T y);
+}
@@ -0,0 +1,264 @@
+package art.arcane.edict.util;
+
+import art.arcane.edict.virtual.VCommandable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable trie (see <a href="https://en.wikipedia.org/wiki/Trie">Wikipedia - Trie</a>) of all {@link VCommandable#names() names} of some elements, stored in flat arrays.<br>
+ * Nodes are numbered in depth-first preorder, with children sorted by character, so the names below a node are a contiguous range of {@link #owners}.
+ * Looking up a prefix takes one binary search over the children of a node per character, after which all names with that prefix are known.
+ */
+public final class PrefixTrie {
+
+    /**
+     * The elements.
+     */
+    private final VCommandable @NotNull [] elements;
+
+    /**
+     * Index of the first child edge per node, with one extra entry holding the total number of edges.
+     */
+    private final int @NotNull [] childStart;
+
+    /**
+     * Character per edge, sorted per node.
+     */
+    private final char @NotNull [] childChars;
+
+    /**
+     * Child node per edge.
+     */
+    private final int @NotNull [] childNodes;
+
+    /**
+     * Index of the first name in {@link #owners} per node.
+     */
+    private final int @NotNull [] start;
+
+    /**
+     * Index (exclusive) of the last name in {@link #owners} that ends at the node, per node.
+     */
+    private final int @NotNull [] terminalEnd;
+
+    /**
+     * Index (exclusive) of the last name in {@link #owners} below the node, per node.
+     */
+    private final int @NotNull [] end;
+
+    /**
+     * Index of the element per name, in order of the names.
+     */
+    private final int @NotNull [] owners;
+
+    /**
+     * Index the names of elements.
+     * @param elements the elements. Elements are referred to by their index in this array.
+     */
+    public PrefixTrie(VCommandable @NotNull [] elements) {
+        this.elements = elements;
+
+        // Build linked trie
+        Builder root = new Builder();
+        int nodes = 1;
+        int names = 0;
+        for (int i = 0; i < elements.length; i++) {
+            for (String name : elements[i].names()) {
+                Builder node = root;
+                for (int c = 0; c < name.length(); c++) {
+                    Builder child = node.children.get(name.charAt(c));
+                    if (child == null) {
+                        child = new Builder();
+                        node.children.put(name.charAt(c), child);
+                        nodes++;
+                    }
+                    node = child;
+                }
+                node.terminal.add(i);
+                names++;
+            }
+        }
+
+        // Flatten
+        childStart = new int[nodes + 1];
+        childChars = new char[nodes - 1];
+        childNodes = new int[nodes - 1];
+        start = new int[nodes];
+        terminalEnd = new int[nodes];
+        end = new int[nodes];
+        owners = new int[names];
+        List<Builder> order = new ArrayList<>(nodes);
+        root.number(order);
+        int edges = 0;
+        for (Builder node : order) {
+            childStart[node.id] = edges;
+            for (var child : node.children.entrySet()) {
+                childChars[edges] = child.getKey();
+                childNodes[edges] = child.getValue().id;
+                edges++;
+            }
+        }
+        childStart[nodes] = edges;
+        root.fill(this, 0);
+    }
+
+    /**
+     * The elements with a name equal to a key.
+     * @param key the key
+     * @return the elements, or {@code null} if there are none
+     */
+    public @Nullable List<VCommandable> exact(@NotNull String key) {
+        int node = find(key);
+        if (node < 0 || start[node] == terminalEnd[node]) {
+            return null;
+        }
+        List<VCommandable> exact = new ArrayList<>(terminalEnd[node] - start[node]);
+        for (int i = start[node]; i < terminalEnd[node]; i++) {
+            exact.add(elements[owners[i]]);
+        }
+        return exact;
+    }
+
+    /**
+     * The elements with a name that starts with a prefix.
+     * @param prefix the prefix
+     * @return the elements, without duplicates, with elements that have a name equal to the prefix first and the others in order of their names
+     */
+    public @NotNull List<VCommandable> prefixed(@NotNull String prefix) {
+        List<VCommandable> prefixed = new ArrayList<>();
+        BitSet seen = new BitSet(elements.length);
+        forEachPrefixed(prefix, element -> {
+            if (!seen.get(element)) {
+                seen.set(element);
+                prefixed.add(elements[element]);
+            }
+        });
+        return prefixed;
+    }
+
+    /**
+     * Run an action for each name that starts with a prefix, with elements that have a name equal to the prefix first and the others in order of their names.
+     * @param prefix the prefix
+     * @param action the action, taking the index of the element with the name. Elements with multiple such names are passed multiple times.
+     */
+    public void forEachPrefixed(@NotNull String prefix, @NotNull IntConsumer action) {
+        int node = find(prefix);
+        if (node < 0) {
+            return;
+        }
+        for (int i = start[node]; i < end[node]; i++) {
+            action.accept(owners[i]);
+        }
+    }
+
+    /**
+     * Run an action for each name that a key starts with (including the key itself).
+     * @param key the key
+     * @param action the action, taking the index of the element with the name
+     */
+    public void forEachPrefixOf(@NotNull String key, @NotNull IntConsumer action) {
+        int node = 0;
+        for (int c = 0; c < key.length(); c++) {
+            node = child(node, key.charAt(c));
+            if (node < 0) {
+                return;
+            }
+            for (int i = start[node]; i < terminalEnd[node]; i++) {
+                action.accept(owners[i]);
+            }
+        }
+    }
+
+    /**
+     * Find the node of a prefix.
+     * @param prefix the prefix
+     * @return the node, or -1 if no name starts with the prefix
+     */
+    private int find(@NotNull String prefix) {
+        int node = 0;
+        for (int c = 0; c < prefix.length() && node >= 0; c++) {
+            node = child(node, prefix.charAt(c));
+        }
+        return node;
+    }
+
+    /**
+     * Find the child of a node.
+     * @param node the node
+     * @param c the character of the edge to the child
+     * @return the child, or -1 if there is none
+     */
+    private int child(int node, char c) {
+        int low = childStart[node];
+        int high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (childChars[middle] < c) {
+                low = middle + 1;
+            } else if (childChars[middle] > c) {
+                high = middle - 1;
+            } else {
+                return childNodes[middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Node of the trie while it is being built.
+     */
+    private static final class Builder {
+
+        /**
+         * Children by the character of their edge.
+         */
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+
+        /**
+         * Indices of the elements with a name that ends at this node.
+         */
+        private final List<Integer> terminal = new ArrayList<>(1);
+
+        /**
+         * Index of this node in preorder.
+         */
+        private int id;
+
+        /**
+         * Number this node and the nodes below it in preorder.
+         * @param order the nodes numbered so far
+         */
+        private void number(@NotNull List<Builder> order) {
+            id = order.size();
+            order.add(this);
+            for (Builder child : children.values()) {
+                child.number(order);
+            }
+        }
+
+        /**
+         * Fill the ranges of names of this node and the nodes below it.
+         * @param trie the trie to fill
+         * @param position the index in {@link #owners} of the first name of this node
+         * @return the index in {@link #owners} after the last name below this node
+         */
+        private int fill(@NotNull PrefixTrie trie, int position) {
+            trie.start[id] = position;
+            for (int element : terminal) {
+                trie.owners[position++] = element;
+            }
+            trie.terminalEnd[id] = position;
+            for (Builder child : children.values()) {
+                position = child.fill(trie, position);
+            }
+            trie.end[id] = position;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package art.arcane.edict.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of fuzzy resolution results, shared by the {@link BKTreeIndexer}s of a system.<br>
+ * Results are stored per {@link IndexStrategy} snapshot of a category, token and search radius, before any permission filtering,
+ * so users with different permissions share entries. Thresholds that round to the same radius for a token share an entry as well.
+ * Since a category publishes a new snapshot whenever it changes, stale entries are never hit, and {@link #invalidate(IndexStrategy)} frees them.<br>
+ * The cache is split into segments that are each a least-recently-used map with their own lock, so lookups and eviction never lock the whole cache.
+ */
+public final class ResolutionCache {
+
+    /**
+     * The largest number of segments.
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * The segments, or an empty array if the cache is disabled.
+     */
+    private final Segment @NotNull [] segments;
+
+    /**
+     * The number of lookups that were answered from the cache.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of lookups that had to search the index.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a new cache.
+     * @param capacity the maximum number of cached results. 0 or lower disables the cache.
+     */
+    public ResolutionCache(int capacity) {
+        if (capacity <= 0) {
+            segments = new Segment[0];
+            return;
+        }
+        int count = Math.min(SEGMENTS, Integer.highestOneBit(capacity));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((capacity + count - 1) / count);
+        }
+    }
+
+    /**
+     * Get the cached matches of a token in an index, or search and cache them.
+     * The search runs outside any lock, so concurrent misses for the same entry may search more than once.
+     * @param index the index snapshot of the category
+     * @param token the token
+     * @param radius the search radius
+     * @param search the search, returning all matches within the radius without filtering, from best to worst
+     * @return the matches, from best to worst
+     */
+    public @NotNull List<BKTreeIndexer.Match> get(@NotNull IndexStrategy index, @NotNull String token, int radius, @NotNull Supplier<List<BKTreeIndexer.Match>> search) {
+        if (segments.length == 0) {
+            return search.get();
+        }
+        Key key = new Key(index, token, radius);
+        Segment segment = segment(key);
+        List<BKTreeIndexer.Match> matches;
+        synchronized (segment) {
+            matches = segment.get(key);
+        }
+        if (matches != null) {
+            hits.increment();
+            return matches;
+        }
+        misses.increment();
+        matches = List.copyOf(search.get());
+        synchronized (segment) {
+            segment.put(key, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Remove all entries of an index snapshot, after its category changed.
+     * @param index the old index snapshot
+     */
+    public void invalidate(@NotNull IndexStrategy index) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.keySet().removeIf(key -> key.index() == index);
+            }
+        }
+    }
+
+    /**
+     * Remove all entries. The counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * The number of cached results.
+     * @return the size
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The number of lookups that were answered from the cache.
+     * @return the hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * The number of lookups that had to search the index.
+     * @return the misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Pick the segment of a key.
+     * @param key the key
+     * @return the segment
+     */
+    private @NotNull Segment segment(@NotNull Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Key of a cached result.
+     * @param index the index snapshot, compared by identity
+     * @param token the token
+     * @param radius the search radius
+     */
+    private record Key(@NotNull IndexStrategy index, @NotNull String token, int radius) {}
+
+    /**
+     * Least-recently-used map of part of the cache. Guarded by itself.
+     */
+    private static final class Segment extends LinkedHashMap<Key, List<BKTreeIndexer.Match>> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The maximum number of entries in this segment.
+         */
+        private final int capacity;
+
+        /**
+         * Create a new segment.
+         * @param capacity the maximum number of entries
+         */
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<BKTreeIndexer.Match>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package art.arcane.edict.virtual;
 
 import art.arcane.edict.Edict;
 import art.arcane.edict.api.Command;
+import art.arcane.edict.api.CommandDescriptor;
+import art.arcane.edict.context.CommandResultContext;
+import art.arcane.edict.execution.CommandResult;
 import art.arcane.edict.handler.ContextHandler;
 import art.arcane.edict.handler.ParameterHandler;
 import art.arcane.edict.message.CompoundMessage;
@@ -10,6 +13,7 @@ import art.arcane.edict.message.StringMessage;
 import art.arcane.edict.permission.Permission;
 import art.arcane.edict.user.User;
 import art.arcane.edict.util.BKTreeIndexer;
+import art.arcane.edict.util.EDictionary;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -20,6 +24,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Record of a virtual command category. Represents a position in the tree of commands.
@@ -31,12 +38,29 @@ import java.util.MissingResourceException;
  * @param indexer indexer of further node(s)
  * @param permission permission node for this category
  * @param system the command system
+ * @param names the {@link VCommandable#names() name table}
  */
-public record VClass(@NotNull String name, @NotNull Command command, @NotNull Object instance, @Nullable VClass parent, @NotNull List<VCommandable> children, @NotNull BKTreeIndexer indexer, @NotNull Permission permission, @NotNull Edict system) implements VCommandable {
+public record VClass(@NotNull String name, @NotNull Command command, @NotNull Object instance, @Nullable VClass parent, @NotNull List<VCommandable> children, @NotNull BKTreeIndexer indexer, @NotNull Permission permission, @NotNull Edict system, @NotNull List<String> names) implements VCommandable {
+
+    /**
+     * Create a new category, computing its {@link VCommandable#names() name table}.
+     * @param name the name of the command node
+     * @param command the command annotation
+     * @param instance the instance of the category class
+     * @param parent the parent category, or {@code null} if this is a root
+     * @param children the children of this category
+     * @param indexer indexer of further node(s)
+     * @param permission permission node for this category
+     * @param system the command system
+     */
+    public VClass(@NotNull String name, @NotNull Command command, @NotNull Object instance, @Nullable VClass parent, @NotNull List<VCommandable> children, @NotNull BKTreeIndexer indexer, @NotNull Permission permission, @NotNull Edict system) {
+        this(name, command, instance, parent, children, indexer, permission, system, VCommandable.nameTable(name, command.aliases()));
+    }
 
     /**
      * Create a new category class.
      * This contains children: All methods of the clazz parameter that are annotated by @Command + any field declarations that are of a type that is annotated by @Command.
+     * If the class has a {@link CommandDescriptor}, those are taken from it instead of scanning all declared methods and fields.
      * @param instance the class to create the edict from
      * @param parent the parent {@link VClass} ({@code null} if clazz is the root)
      * @param system the system
@@ -73,16 +97,39 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
                 annotation,
                 instance,
                 parent,
-                new ArrayList<>(),
-                new BKTreeIndexer(),
+                new CopyOnWriteArrayList<>(),
+                new BKTreeIndexer(system.getSettings(), system.getResolutionCache()),
                 system.makePermission(parent == null ? null : parent.permission, annotation.permission()),
                 system
         );
 
+        // Members from the generated descriptor, or from a reflective scan of all declared members
+        Method[] methods = null;
+        Field[] fields = null;
+        String[][] parameterNames = null;
+        CommandDescriptor descriptor = CommandDescriptor.of(clazz);
+        if (descriptor != null) {
+            try {
+                methods = descriptor.methods();
+                fields = descriptor.categories();
+                parameterNames = descriptor.parameterNames();
+            } catch (ReflectiveOperationException e) {
+                system.w(() -> new StringMessage("Descriptor of " + clazz.getSimpleName() + " is outdated, scanning the class instead: " + e));
+                methods = null;
+                fields = null;
+                parameterNames = null;
+            }
+        }
+        if (methods == null) {
+            methods = clazz.getDeclaredMethods();
+            fields = clazz.getDeclaredFields();
+        }
+
         // Loop over method declarations to find commands
-        for (Method method : clazz.getDeclaredMethods()) {
+        for (int m = 0; m < methods.length; m++) {
+            Method method = methods[m];
             if (!method.isAnnotationPresent(Command.class)) {
-                system.d(new StringMessage(clazz.getSimpleName() + "#" + method.getName() + "() not registered because not annotated by @Command"));
+                system.d(() -> new StringMessage(clazz.getSimpleName() + "#" + method.getName() + "() not registered because not annotated by @Command"));
                 continue;
             }
             method.setAccessible(true);
@@ -91,11 +138,11 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
                     annotation,
                     category,
                     method,
-                    new ArrayList<>(),
                     system.makePermission(category.permission, annotation.permission()),
-                    system
+                    system,
+                    instance,
+                    parameterNames == null ? null : parameterNames[m]
             );
-            vMethod.params().addAll(VParam.paramsFromMethod(vMethod, method, system));
 
             // Command
             if (category.command.singleCommandCategory()) {
@@ -106,11 +153,12 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
         }
 
         // Loop over fields to find more command categories
-        for (Field field : clazz.getDeclaredFields()) {
+        List<Object> subcategories = new ArrayList<>();
+        for (Field field : fields) {
 
             // Annotation check
             if (!field.getType().isAnnotationPresent(Command.class)) {
-                system.d(new StringMessage(clazz.getSimpleName() + "#" + field.getName() + " not registered because not annotated by @Command"));
+                system.d(() -> new StringMessage(clazz.getSimpleName() + "#" + field.getName() + " not registered because not annotated by @Command"));
                 continue;
             }
 
@@ -129,23 +177,25 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
                             try {
                                 fInstance = constructor.newInstance();
                             } catch (InstantiationException | InvocationTargetException e) {
-                                system.w(new StringMessage("Tried constructing class for field " + field.getName() + " but could not due to " + e));
+                                system.w(() -> new StringMessage("Tried constructing class for field " + field.getName() + " but could not due to " + e));
                             }
                         }
                     }
                 }
             } catch (IllegalAccessException e) {
-                system.w(new StringMessage("Tried getting field " + field.getName() + " but could not get access due to " + e));
+                system.w(() -> new StringMessage("Tried getting field " + field.getName() + " but could not get access due to " + e));
             }
 
             // Failed
             if (fInstance == null) {
-                system.w(new StringMessage("Field " + field.getName() + " is of a type annotated by @Command but cannot be instantiated!"));
+                system.w(() -> new StringMessage("Field " + field.getName() + " is of a type annotated by @Command but cannot be instantiated!"));
                 continue;
             }
 
             // Success
-            VCommandable subcategory = VClass.fromInstance(fInstance, category, system);
+            subcategories.add(fInstance);
+        }
+        for (VCommandable subcategory : fromInstances(subcategories, category, system)) {
             if (subcategory != null) {
                 category.children.add(subcategory);
             }
@@ -153,7 +203,7 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
 
         // Empty check
         if (category.children.isEmpty()) {
-            system.w(new StringMessage(clazz.getSimpleName() + " has no declared commands or subcategories. Not loading the class. This is likely an error!"));
+            system.w(() -> new StringMessage(clazz.getSimpleName() + " has no declared commands or subcategories. Not loading the class. This is likely an error!"));
             return null;
         }
 
@@ -163,6 +213,52 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
         return category;
     }
 
+    /**
+     * Create categories from instances, like {@link #fromInstance(Object, VClass, Edict)}.
+     * If {@link EDictionary#parallelBuild} is enabled, the categories, their subcategories and their indexers are built in parallel with fork-join.
+     * The results are in the order of the instances either way, so the tree is the same as when built one after another.
+     * @param instances the instances to create categories from
+     * @param parent the parent {@link VClass} ({@code null} if the instances are roots)
+     * @param system the system
+     * @return per instance, the new category, or {@code null} if there are no commands in it or if it would introduce a circular reference
+     * @throws MissingResourceException if there is no @Command annotation on one of the classes
+     * @throws NullPointerException if the {@link ParameterHandler} or {@link ContextHandler} for any of the parameters of the categories is not registered
+     */
+    public static @NotNull List<@Nullable VCommandable> fromInstances(@NotNull List<?> instances, @Nullable VClass parent, @NotNull Edict system) throws MissingResourceException, NullPointerException {
+        if (!system.getSettings().parallelBuild || instances.size() < 2) {
+            List<VCommandable> categories = new ArrayList<>(instances.size());
+            for (Object instance : instances) {
+                categories.add(fromInstance(instance, parent, system));
+            }
+            return categories;
+        }
+        if (!ForkJoinTask.inForkJoinPool()) {
+            return ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> fork(instances, parent, system)));
+        }
+        return fork(instances, parent, system);
+    }
+
+    /**
+     * Create categories from instances in parallel, like {@link #fromInstances(List, VClass, Edict)}.
+     * Does not check whether it runs in a fork-join pool itself, since the caller of {@link ForkJoinPool#invoke(ForkJoinTask)} may run the task.
+     * @param instances the instances to create categories from
+     * @param parent the parent {@link VClass} ({@code null} if the instances are roots)
+     * @param system the system
+     * @return per instance, the new category, or {@code null} if there are no commands in it or if it would introduce a circular reference
+     */
+    private static @NotNull List<@Nullable VCommandable> fork(@NotNull List<?> instances, @Nullable VClass parent, @NotNull Edict system) {
+        List<ForkJoinTask<VCommandable>> tasks = new ArrayList<>(instances.size());
+        for (Object instance : instances) {
+            tasks.add(ForkJoinTask.adapt(() -> fromInstance(instance, parent, system)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        List<VCommandable> categories = new ArrayList<>(instances.size());
+        for (ForkJoinTask<VCommandable> task : tasks) {
+            categories.add(task.join());
+        }
+        return categories;
+    }
+
     @Override
     public @NotNull String name() {
         return name;
@@ -199,24 +295,65 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
         return indexer;
     }
 
+    /**
+     * Register a child of this category at runtime, reindexing only this category.
+     * Commands in progress keep using the children they already resolved.
+     * @param instance the instance of a class annotated by {@link Command} to add as subcategory
+     * @return the new child, or {@code null} if it has no commands or would introduce a circular reference
+     * @throws MissingResourceException if there is no @Command annotation on the class of the instance
+     * @throws NullPointerException if the {@link ParameterHandler} or {@link ContextHandler} for any of the parameters of the new child is not registered
+     */
+    public @Nullable VCommandable addChild(@NotNull Object instance) throws MissingResourceException, NullPointerException {
+        VCommandable child = VClass.fromInstance(instance, this, system);
+        if (child != null) {
+            addChild(child);
+        }
+        return child;
+    }
+
+    /**
+     * Register a child of this category at runtime, reindexing only this category.
+     * @param child the child to add. Its {@link VCommandable#parent() parent} should be this category.
+     */
+    public void addChild(@NotNull VCommandable child) {
+        children.add(child);
+        indexer.add(child);
+    }
+
+    /**
+     * Unregister a child of this category at runtime, reindexing only this category.
+     * Commands in progress keep using the children they already resolved.
+     * @param child the child to remove
+     * @return true if the child was a child of this category
+     */
+    public boolean removeChild(@NotNull VCommandable child) {
+        indexer.remove(child);
+        return children.remove(child);
+    }
+
     @Override
     public boolean run(@NotNull List<String> input, @NotNull User user) {
 
         // Send help when this is the final node
         if (input.isEmpty()) {
             user.send(getHelpFor(user));
+            CommandResult.Builder result = new CommandResultContext().get();
+            if (result != null) {
+                result.outcome(CommandResult.Outcome.HELP);
+            }
             return true;
         }
 
         // Get children
-        List<VCommandable> children = indexer.search(
+        List<BKTreeIndexer.Match> children = indexer.searchPermitted(
                 input.get(0),
+                1,
                 system.getSettings().matchThreshold,
-                vCommandable -> user.hasPermission(vCommandable.permission())
+                user::hasPermission
         );
 
         // Send command further downstream
-        for (VCommandable child : children) {
+        for (VCommandable child : children.stream().map(BKTreeIndexer.Match::element).toList()) {
             if (child.run(input.subList(1, input.size()), user)) {
                 return true;
             }
@@ -248,15 +385,16 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
         // Next input exists and is non-empty, search for next
 
         // Get children
-        List<VCommandable> children = indexer.search(
+        List<BKTreeIndexer.Match> children = indexer.searchCompletions(
                 input.get(0),
+                system.getSettings().suggestionMatches,
                 system.getSettings().matchThreshold,
-                vCommandable -> user.hasPermission(vCommandable.permission())
+                user::hasPermission
         );
 
         // Send command further downstream
         List<String> suggestions = new ArrayList<>();
-        children.forEach(c -> suggestions.addAll(c.suggest(input.subList(1, input.size()), user)));
+        children.forEach(c -> suggestions.addAll(c.element().suggest(input.subList(1, input.size()), user)));
         return suggestions;
     }
 
@@ -273,7 +411,7 @@ public record VClass(@NotNull String name, @NotNull Command command, @NotNull Ob
                 subComs++;
             }
         }
-        builder.append("(").append(subCats).append(" | ").append(subComs).append(")");
+        builder.append("(").append(subCats).append(" | ").append(subComs).append(") {").append(indexer.index().name()).append("}");
         for (VCommandable child : children) {
             child.networkString(builder, indent, currentIndent + indent);
         }
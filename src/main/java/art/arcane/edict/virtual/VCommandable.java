@@ -6,9 +6,9 @@ import art.arcane.edict.user.User;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Set;
 
 public interface VCommandable {
 
@@ -24,13 +24,21 @@ public interface VCommandable {
      */
     @NotNull String @NotNull [] aliases();
 
+    /**
+     * Name table of the commandable: the {@link #name()} followed by the {@link #aliases()}, stripped, without empty entries or duplicates.
+     * Computed once when the commandable is built, so it is cheap to read in hot loops.
+     * @return the name table, which is unmodifiable
+     */
+    @NotNull List<String> names();
+
     /**
      * List of aliases, filtered for empty entries.
      * @return list of aliases for this commandable
      */
     default @NotNull List<String> getAliases() {
-        return Stream.of(aliases()).filter(a -> !a.isEmpty()).toList();
-    };
+        List<String> names = names();
+        return names.subList(1, names.size());
+    }
 
     /**
      * Parent commandable.
@@ -43,9 +51,38 @@ public interface VCommandable {
      * @return all names of the commandable
      */
     default @NotNull List<String> allNames() {
-        List<String> names = new ArrayList<>(Collections.singletonList(name()));
-        names.addAll(getAliases());
-        return names;
+        return new ArrayList<>(names());
+    }
+
+    /**
+     * Whether a string is one of the {@link #names()} of the commandable.
+     * @param name the string
+     * @return true if it is the name or an alias
+     */
+    default boolean hasName(@NotNull String name) {
+        for (String n : names()) {
+            if (n.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build a {@link #names() name table}.
+     * @param name the name
+     * @param aliases the aliases
+     * @return the name table
+     */
+    static @NotNull List<String> nameTable(@NotNull String name, @NotNull String @NotNull [] aliases) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(name.strip());
+        for (String alias : aliases) {
+            if (!alias.isBlank()) {
+                names.add(alias.strip());
+            }
+        }
+        return List.copyOf(names);
     }
 
     /**
@@ -2,6 +2,10 @@ package art.arcane.edict.virtual;
 
 import art.arcane.edict.Edict;
 import art.arcane.edict.api.Command;
+import art.arcane.edict.context.CommandResultContext;
+import art.arcane.edict.execution.CommandResult;
+import art.arcane.edict.handler.ContextHandler;
+import art.arcane.edict.handler.ParameterHandler;
 import art.arcane.edict.message.CompoundMessage;
 import art.arcane.edict.message.HoverableClickableMessage;
 import art.arcane.edict.message.HoverableMessage;
@@ -12,40 +16,178 @@ import art.arcane.edict.parser.ParameterParser;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Record of a command, representing the final node in the tree of commands.
- * I.e. like a leaf in a tree data-structure.
- * @param command the command annotation
- * @param parent parent branches
- * @param method the method for this command
- * @param permission the permission node of this command
- * @param params the parameters of this method {@link VParam}s
- * @param system the command system
+ * Virtual command, representing the final node in the tree of commands.
+ * I.e. like a leaf in a tree data-structure.<br>
+ * Equal to another command like a record of its command annotation, parent, method, parameters, permission and system.
  */
-public record VMethod(@NotNull Command command, @Nullable VClass parent, @NotNull Method method, @NotNull List<VParam> params, @NotNull Permission permission, @NotNull Edict system) implements VCommandable {
+public final class VMethod implements VCommandable {
+
+    /**
+     * The command annotation.
+     */
+    private final @NotNull Command command;
+
+    /**
+     * Parent branches, or {@code null} if this command is not in a category.
+     */
+    private final @Nullable VClass parent;
+
+    /**
+     * The method for this command.
+     */
+    private final @NotNull Method method;
+
+    /**
+     * The parameters of this method {@link VParam}s.
+     */
+    private final @NotNull List<VParam> params;
+
+    /**
+     * The permission node of this command.
+     */
+    private final @NotNull Permission permission;
+
+    /**
+     * The command system.
+     */
+    private final @NotNull Edict system;
+
+    /**
+     * The {@link VCommandable#names() name table}.
+     */
+    private final @NotNull List<String> names;
+
+    /**
+     * The instance to invoke the {@link #method} on, or {@code null} if the method is static.
+     */
+    private final @Nullable Object instance;
+
+    /**
+     * Invoker of the {@link #method}, adapted to the {@link #params}, or {@code null} until the first invocation if created with the parameters filled in afterwards.
+     */
+    private volatile @Nullable Invoker invoker;
+
+    /**
+     * Create a new command method, with the parameters of the method.
+     * @param command the command annotation
+     * @param parent parent branches, or {@code null} if this command is not in a category
+     * @param method the method for this command
+     * @param permission the permission node of this command
+     * @param system the command system
+     * @param instance the instance to invoke the method on, or {@code null} if the method is static
+     * @param parameterNames the names of the parameters in source, or {@code null} to use the names known to reflection
+     * @throws MissingResourceException if any of the parameters is not annotated by @Param (making it invalid)
+     * @throws NullPointerException if the {@link ParameterHandler} or {@link ContextHandler} for any of the parameters is not registered
+     * @throws IllegalArgumentException if a parameter handler does not support its parameter, or if the method cannot be accessed
+     */
+    public VMethod(@NotNull Command command, @Nullable VClass parent, @NotNull Method method, @NotNull Permission permission, @NotNull Edict system, @Nullable Object instance, @NotNull String @Nullable [] parameterNames) throws MissingResourceException, NullPointerException, IllegalArgumentException {
+        this.command = command;
+        this.parent = parent;
+        this.method = method;
+        this.permission = permission;
+        this.system = system;
+        this.names = VCommandable.nameTable(command.name().isBlank() ? method.getName() : command.name(), command.aliases());
+        this.params = List.copyOf(VParam.paramsFromMethod(this, method, parameterNames, system));
+        this.instance = instance;
+        this.invoker = new Invoker(method, params, instance);
+    }
+
+    /**
+     * Create a new command method, with parameters that are added to {@code params} after construction.
+     * The method is invoked on the {@link VClass#instance() instance} of the parent (statically if there is none),
+     * and is adapted to the parameters on its first invocation, so they should all be added by then.
+     * @param command the command annotation
+     * @param parent parent branches, or {@code null} if this command is not in a category
+     * @param method the method for this command
+     * @param params the parameters of this method {@link VParam}s
+     * @param permission the permission node of this command
+     * @param system the command system
+     */
+    public VMethod(@NotNull Command command, @Nullable VClass parent, @NotNull Method method, @NotNull List<VParam> params, @NotNull Permission permission, @NotNull Edict system) {
+        this.command = command;
+        this.parent = parent;
+        this.method = method;
+        this.permission = permission;
+        this.system = system;
+        this.names = VCommandable.nameTable(command.name().isBlank() ? method.getName() : command.name(), command.aliases());
+        this.params = params;
+        this.instance = parent == null ? null : parent.instance();
+        this.invoker = null;
+    }
 
     public static VCommandable fromInstance(Method method, Object instance, Edict system) {
         if (!method.isAnnotationPresent(Command.class)) {
-            system.d(new StringMessage("#" + method.getName() + "() not registered because not annotated by @Command"));
+            system.d(() -> new StringMessage("#" + method.getName() + "() not registered because not annotated by @Command"));
             throw new MissingResourceException("@Command annotation not present on method " + method.getName(), method.getName(), "@Command");
         }
         method.setAccessible(true);
         Command annotation = method.getDeclaredAnnotation(Command.class);
-        VMethod vMethod = new VMethod(
+        return new VMethod(
                 annotation,
                 null,
                 method,
-                new ArrayList<>(),
                 system.makePermission(null, annotation.permission()),
-                system
+                system,
+                instance,
+                null
         );
-        vMethod.params().addAll(VParam.paramsFromMethod(vMethod, method, system));
-        return vMethod;
+    }
+
+    /**
+     * The command annotation.
+     * @return the command annotation
+     */
+    public @NotNull Command command() {
+        return command;
+    }
+
+    @Override
+    public @Nullable VClass parent() {
+        return parent;
+    }
+
+    /**
+     * The method for this command.
+     * @return the method
+     */
+    public @NotNull Method method() {
+        return method;
+    }
+
+    /**
+     * The parameters of this method, in the order their values are passed in.
+     * @return the parameters, which are unmodifiable
+     */
+    public @NotNull List<VParam> params() {
+        return params;
+    }
+
+    @Override
+    public @NotNull Permission permission() {
+        return permission;
+    }
+
+    /**
+     * The command system.
+     * @return the system
+     */
+    public @NotNull Edict system() {
+        return system;
+    }
+
+    @Override
+    public @NotNull List<String> names() {
+        return names;
     }
 
     @Override
@@ -129,14 +271,66 @@ public record VMethod(@NotNull Command command, @Nullable VClass parent, @NotNul
 
     @Override
     public boolean run(@NotNull List<String> input, @NotNull User user) {
+        CommandResult.Builder result = new CommandResultContext().get();
+        if (result == null) {
+            result = new CommandResult.Builder(String.join(" ", input));
+        }
+
+        Object[] values = prepare(input, user, result);
+        if (values == null) {
+            return true;
+        }
+
+        AtomicBoolean success = new AtomicBoolean(true);
+        CommandResult.Builder fResult = result;
+
+        Runnable executor = () -> {
+            try {
+                success.set(invoke(values, user, fResult));
+            } finally {
+                fResult.release();
+            }
+        };
+
+        fResult.hold();
+        if (command().sync()) {
+            system.runSync(executor);
+        } else {
+            executor.run();
+        }
+
+        return success.get();
+    }
+
+    /**
+     * Prepare running this command by parsing the input into parameter values.
+     * If preparing fails, the user is informed and the outcome is recorded in the {@code result}.
+     * @param input the remaining input string to parse with
+     * @param user the user that ran the command
+     * @param result the result builder to record in
+     * @return the parameter values, or {@code null} if the command should not be invoked
+     */
+    public Object @Nullable [] prepare(@NotNull List<String> input, @NotNull User user, @NotNull CommandResult.Builder result) {
+        result.method(this).mark(CommandResult.Stage.RESOLVE);
+        if (result.isDone()) {
+            return null;
+        }
+
+        long timeout = command.timeoutMillis() == Command.DEFAULT_TIMEOUT ? system.getSettings().commandTimeout : command.timeoutMillis();
+        if (timeout > 0) {
+            result.timeout(timeout);
+        }
+
         if (input.size() < params.stream().filter(p -> !(p.param().contextual() && user.canUseContext()) || !p.param().defaultValue().isBlank()).count()) {
             // improve this by sending param-specific targeted help
             user.send(getHelpFor(user));
-            return true;
+            result.outcome(CommandResult.Outcome.HELP);
+            return null;
         }
         user.send(new StringMessage("Running command " + name() + (input.isEmpty() ? " without input" : " with input: " + String.join(", ", input))));
-        ParameterParser parser = new ParameterParser(input, params, user, system);
+        ParameterParser parser = new ParameterParser(new ArrayList<>(input), params, user, system);
         Object[] values = parser.parse();
+        result.mark(CommandResult.Stage.PARSE);
 
         if (!parser.getBadArgsAndReasons().isEmpty()) {
             user.send(new StringMessage("Some of your inputs were bad & ignored:"));
@@ -151,42 +345,59 @@ public record VMethod(@NotNull Command command, @Nullable VClass parent, @NotNul
                 user.send(new StringMessage(" - " + param.name() + " (" + param.parameter().getType().getSimpleName() + ")"));
             }
             user.send(new StringMessage("Please try running the command again after fixing the parameters"));
-            return true;
+            result.outcome(CommandResult.Outcome.INVALID_INPUT);
+            return null;
         }
 
-        String reason = verifyParameters(values, method);
+        String reason = verifyParameters(values);
         if (reason != null) {
             long l = System.currentTimeMillis();
             user.send(new StringMessage("WARNING: System error, parameter value extraction failed. Please contact your admin with code: " + l));
-            system.w(new StringMessage("(Code " + l + ") Parameter value extraction failed for " + parent().instance().getClass() + "#" + method.getName() + " with input '" + String.join(" ", input) + "' -> " + Arrays.toString(values) + "\n" +
+            system.w(() -> new StringMessage("(Code " + l + ") Parameter value extraction failed for " + parent().instance().getClass() + "#" + method.getName() + " with input '" + String.join(" ", input) + "' -> " + Arrays.toString(values) + "\n" +
                     "Because of: " + reason));
-            return true;
+            result.error(new IllegalStateException(reason)).outcome(CommandResult.Outcome.FAILED);
+            return null;
         }
 
+        result.arguments(values);
+        return values;
+    }
 
-        AtomicBoolean success = new AtomicBoolean(true);
-
-        Runnable executor = () -> {
-            try {
-                method.invoke(parent.instance(), values);
-                success.set(true);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                long l = System.currentTimeMillis();
-                user.send(new StringMessage("WARNING: System error, please contact your admin. Code: " + l));
-                system.w(new StringMessage("(Code: " + l + ") Failed to invoke " + method.getName() + " on " + parent.getClass().getSimpleName() + " due to " + e));
-                system.w(new StringMessage(Arrays.toString(e.getStackTrace())));
-                system.w(new StringMessage("This is MOST likely an issue with Edict. Please contact us with the method (and class) and command that was ran."));
-                success.set(false);
-            }
-        };
+    /**
+     * Verify that parameter values can be passed to the method.
+     * @param values the parameter values, in the order of the {@link #params}
+     * @return null if successful. Otherwise, a string message with the reason
+     */
+    public @Nullable String verifyParameters(@Nullable Object @NotNull [] values) {
+        return invoker().verify(values);
+    }
 
-        if (command().sync()) {
-            system.runSync(executor);
-        } else {
-            executor.run();
+    /**
+     * Invoke this command on the current thread, with values from {@link #prepare(List, User, CommandResult.Builder)}.
+     * Does not take {@link Command#sync()} into account.
+     * @param values the parameter values
+     * @param user the user that ran the command
+     * @param result the result builder to record in
+     * @return true if the invocation succeeded
+     */
+    public boolean invoke(@NotNull Object @NotNull [] values, @NotNull User user, @NotNull CommandResult.Builder result) {
+        if (result.isDone()) {
+            return true;
+        }
+        try {
+            result.returnValue(invoker().invoke(values)).outcome(CommandResult.Outcome.SUCCESS);
+            return true;
+        } catch (Throwable e) {
+            long l = System.currentTimeMillis();
+            user.send(new StringMessage("WARNING: System error, please contact your admin. Code: " + l));
+            system.w(() -> new StringMessage("(Code: " + l + ") Failed to invoke " + method.getName() + " on " + method.getDeclaringClass().getSimpleName() + " due to " + e));
+            system.w(() -> new StringMessage(Arrays.toString(e.getStackTrace())));
+            system.w(new StringMessage("This is MOST likely an issue with Edict. Please contact us with the method (and class) and command that was ran."));
+            result.error(e).outcome(CommandResult.Outcome.FAILED);
+            return false;
+        } finally {
+            result.mark(CommandResult.Stage.INVOKE);
         }
-
-        return success.get();
     }
 
     @Override
@@ -220,30 +431,136 @@ public record VMethod(@NotNull Command command, @Nullable VClass parent, @NotNul
         }
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof VMethod other
+                && command.equals(other.command)
+                && Objects.equals(parent, other.parent)
+                && method.equals(other.method)
+                && params.equals(other.params)
+                && permission.equals(other.permission)
+                && system.equals(other.system);
+    }
+
+    @Override
+    public int hashCode() {
+        return command.hashCode() + method.hashCode() + params.hashCode() + permission.hashCode() + system.hashCode();
+    }
+
     /**
-     * Verify that the generated parameters for a method are correct.
-     * @param parameterValues the generated parameter values
-     * @param method the method
-     * @return null if successful. Otherwise, a string message with the reason
+     * The invoker of the {@link #method}, which is created on first use if the parameters were filled in after construction.
+     * @return the invoker
+     * @throws IllegalArgumentException if the parameters do not match the method, or if the method cannot be accessed
      */
-    private static @Nullable String verifyParameters(@NotNull Object @NotNull [] parameterValues, @NotNull Method method) {
-        if (parameterValues.length != method.getParameters().length) {
-            return parameterValues.length + " does not equal required parameter count of " + method.getParameters().length;
+    private @NotNull Invoker invoker() throws IllegalArgumentException {
+        Invoker invoker = this.invoker;
+        if (invoker == null) {
+            invoker = new Invoker(method, List.copyOf(params), instance);
+            this.invoker = invoker;
         }
-        for (int i = 0; i < method.getParameters().length; i++) {
-            if (parameterValues[i] == null) {
-                continue;
+        return invoker;
+    }
+
+    /**
+     * Invoker of the method of a command, adapted once to take the parameter values in the order of the {@link #params} and to return an object.
+     * Creating it checks the parameters against the method, so each invocation only checks the types of the values, and invokes without reflection.
+     */
+    private static final class Invoker {
+
+        /**
+         * The adapted method handle, of type {@code (Object[])Object}.
+         */
+        private final @NotNull MethodHandle handle;
+
+        /**
+         * The types of the parameters in the order of the {@link VMethod#params}, with primitives boxed.
+         */
+        private final Class<?> @NotNull [] types;
+
+        /**
+         * Whether each parameter, in the order of the {@link VMethod#params}, is primitive and so cannot be {@code null}.
+         */
+        private final boolean @NotNull [] primitive;
+
+        /**
+         * Create an invoker of a method.
+         * @param method the method
+         * @param params the parameters of the command, in the order their values are passed in
+         * @param instance the instance to invoke the method on, or {@code null} if the method is static
+         * @throws IllegalArgumentException if the parameters do not match the parameters of the method, if a parameter handler does not support its parameter,
+         * or if the method cannot be accessed
+         */
+        private Invoker(@NotNull Method method, @NotNull List<VParam> params, @Nullable Object instance) throws IllegalArgumentException {
+            Parameter[] parameters = method.getParameters();
+            if (params.size() != parameters.length) {
+                throw new IllegalArgumentException(params.size() + " parameters do not match the parameter count of " + parameters.length + " of " + method.getName());
+            }
+
+            // Positions of the parameters in the method, and checks of their types
+            int[] reorder = new int[parameters.length];
+            Class<?>[] ordered = new Class<?>[parameters.length];
+            types = new Class<?>[parameters.length];
+            primitive = new boolean[parameters.length];
+            boolean[] seen = new boolean[parameters.length];
+            for (int i = 0; i < params.size(); i++) {
+                VParam param = params.get(i);
+                int position = Arrays.asList(parameters).indexOf(param.parameter());
+                if (position < 0 || seen[position]) {
+                    throw new IllegalArgumentException("Parameter " + param.name() + " is not a distinct parameter of " + method.getName());
+                }
+                seen[position] = true;
+                Class<?> type = parameters[position].getType();
+                if (!param.parameterHandler().supports(type)) {
+                    throw new IllegalArgumentException("Handler of parameter " + param.name() + " of " + method.getName() + " does not support " + type.getSimpleName());
+                }
+                reorder[position] = i;
+                ordered[i] = type;
+                types[i] = MethodType.methodType(type).wrap().returnType();
+                primitive[i] = type.isPrimitive();
+            }
+
+            // Adapt the handle: bind the instance, take the parameters in order of the params, then spread them from an array
+            MethodHandle adapted;
+            try {
+                adapted = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access " + method.getName(), e);
+            }
+            if (!Modifier.isStatic(method.getModifiers())) {
+                adapted = adapted.bindTo(instance);
             }
+            adapted = MethodHandles.permuteArguments(adapted, MethodType.methodType(adapted.type().returnType(), ordered), reorder);
+            handle = adapted.asType(adapted.type().generic()).asSpreader(Object[].class, parameters.length);
+        }
 
-            if (parameterValues[i].getClass() != method.getParameters()[i].getType()) {
-                return "Type of parameter " + i + " is " + parameterValues[i].getClass().getSimpleName() + " but should be " + method.getParameters()[i].getType().getSimpleName();
+        /**
+         * Verify that parameter values can be passed to the method.
+         * @param values the parameter values, in the order of the {@link VMethod#params}
+         * @return null if successful. Otherwise, a string message with the reason
+         */
+        private @Nullable String verify(@Nullable Object @NotNull [] values) {
+            if (values.length != types.length) {
+                return values.length + " does not equal required parameter count of " + types.length;
             }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null ? primitive[i] : !types[i].isInstance(values[i])) {
+                    return "Type of parameter " + i + " is " + (values[i] == null ? "null" : values[i].getClass().getSimpleName()) + " but should be " + types[i].getSimpleName();
+                }
+            }
+            return null;
         }
-        return null;
-    }
 
-    @Override
-    public int hashCode() {
-        return command.hashCode() + method.hashCode() + params.hashCode() + permission.hashCode() + system.hashCode();
+        /**
+         * Invoke the method.
+         * @param values the {@link #verify(Object[]) verified} parameter values, in the order of the {@link VMethod#params}
+         * @return the return value of the method, or {@code null} if it returns nothing
+         * @throws Throwable anything the method throws
+         */
+        private @Nullable Object invoke(@Nullable Object @NotNull [] values) throws Throwable {
+            return (Object) handle.invokeExact(values);
+        }
     }
 }
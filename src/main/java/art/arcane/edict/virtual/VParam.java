@@ -24,8 +24,36 @@ import java.util.MissingResourceException;
  * Record for a virtual parameter.
  * @param param the parameter annotation
  * @param parameter the parameter itself
+ * @param names the {@link VCommandable#names() name table}
  */
-public record VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNull VMethod parent, @NotNull ParameterHandler<?> parameterHandler, @Nullable ContextHandler<?> contextHandler, @NotNull Edict system) implements VCommandable {
+public record VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNull VMethod parent, @NotNull ParameterHandler<?> parameterHandler, @Nullable ContextHandler<?> contextHandler, @NotNull Edict system, @NotNull List<String> names) implements VCommandable {
+
+    /**
+     * Create a new parameter, computing its {@link VCommandable#names() name table}.
+     * @param param the parameter annotation
+     * @param parameter the parameter itself
+     * @param parent the method this is a parameter of
+     * @param parameterHandler the handler parsing values for this parameter
+     * @param contextHandler the handler getting values for this parameter from context, or {@code null} if it is not contextual
+     * @param system the command system
+     */
+    public VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNull VMethod parent, @NotNull ParameterHandler<?> parameterHandler, @Nullable ContextHandler<?> contextHandler, @NotNull Edict system) {
+        this(param, parameter, parent, parameterHandler, contextHandler, system, parameter.getName());
+    }
+
+    /**
+     * Create a new parameter with a known source name, computing its {@link VCommandable#names() name table}.
+     * @param param the parameter annotation
+     * @param parameter the parameter itself
+     * @param parent the method this is a parameter of
+     * @param parameterHandler the handler parsing values for this parameter
+     * @param contextHandler the handler getting values for this parameter from context, or {@code null} if it is not contextual
+     * @param system the command system
+     * @param parameterName the name of the parameter in source, used if the annotation has no name
+     */
+    public VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNull VMethod parent, @NotNull ParameterHandler<?> parameterHandler, @Nullable ContextHandler<?> contextHandler, @NotNull Edict system, @NotNull String parameterName) {
+        this(param, parameter, parent, parameterHandler, contextHandler, system, VCommandable.nameTable(param.name().isBlank() ? parameterName : param.name(), param.aliases()));
+    }
 
     /**
      * Create a list of parameters from a method.
@@ -37,8 +65,24 @@ public record VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNul
      * or if the {@link ContextHandler} for any of the contextual parameter of any methods of the {@code commandRoots} or any of its children is not registered
      */
     public static @NotNull List<VParam> paramsFromMethod(@NotNull VMethod parent, @NotNull Method method, @NotNull Edict system) throws MissingResourceException, NullPointerException {
+        return paramsFromMethod(parent, method, null, system);
+    }
+
+    /**
+     * Create a list of parameters from a method.
+     * @param method the method
+     * @param parameterNames the names of the parameters in source, or {@code null} to use the names known to reflection
+     * @param system the command system
+     * @return a list of parameters. Can be empty if there are none
+     * @throws MissingResourceException if any of the parameters is not annotated by @Param (making it invalid)
+     * @throws NullPointerException if the {@link ParameterHandler} for any of the parameters of any methods of this class or any of its children is not registered
+     * or if the {@link ContextHandler} for any of the contextual parameter of any methods of the {@code commandRoots} or any of its children is not registered
+     */
+    public static @NotNull List<VParam> paramsFromMethod(@NotNull VMethod parent, @NotNull Method method, @NotNull String @Nullable [] parameterNames, @NotNull Edict system) throws MissingResourceException, NullPointerException {
         List<VParam> params = new ArrayList<>();
-        for (Parameter parameter : method.getParameters()) {
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
             if (!parameter.isAnnotationPresent(Param.class)) {
                 throw new MissingResourceException("@Param annotation missing on provided parameter", parameter.getClass().getSimpleName(), "@Param");
             }
@@ -49,7 +93,8 @@ public record VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNul
                     parent,
                     system.getParameterHandlers().getHandlerFor(parameter.getType()),
                     annotation.contextual() ? system.getContextHandlers().getHandlerFor(parameter.getType()) : null,
-                    system
+                    system,
+                    parameterNames == null ? parameter.getName() : parameterNames[i]
             ));
         }
         params.sort((o1, o2) -> {
@@ -78,7 +123,7 @@ public record VParam(@NotNull Param param, @NotNull Parameter parameter, @NotNul
      */
     @Override
     public @NotNull String name() {
-        return param.name().isBlank() ? parameter.getName() : param.name();
+        return param.name().isBlank() ? names.get(0) : param.name();
     }
 
     /**
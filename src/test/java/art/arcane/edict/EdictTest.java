@@ -1,12 +1,16 @@
 package art.arcane.edict;
 
 import art.arcane.edict.context.UserContext;
+import art.arcane.edict.execution.CommandResult;
 import art.arcane.edict.testconstruct.*;
+import art.arcane.edict.util.EDictionary;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,6 +57,91 @@ public class EdictTest {
         assertEquals("ran root command", TESTUSER.received.get(TESTUSER.received.size() - 1).string());
     }
 
+    @Test
+    void commandAsync() throws Exception {
+        CommandResult result = SUT.commandAsync("test command", TESTUSER).get(1, TimeUnit.SECONDS);
+        assertEquals(CommandResult.Outcome.SUCCESS, result.outcome());
+        assertNotNull(result.method());
+        assertEquals("command", result.method().name());
+        assertNotNull(result.arguments());
+        assertEquals(0, result.arguments().length);
+        assertTrue(result.timings().total() > 0);
+    }
+
+    @Test
+    void commandAsyncHelpAndNotFound() throws Exception {
+        assertEquals(CommandResult.Outcome.HELP, SUT.commandAsync("test", TESTUSER).get(1, TimeUnit.SECONDS).outcome());
+        CommandResult notFound = SUT.commandAsync("zzzzzzzz", TESTUSER).get(1, TimeUnit.SECONDS);
+        assertEquals(CommandResult.Outcome.NOT_FOUND, notFound.outcome());
+        assertNull(notFound.method());
+    }
+
+    @Test
+    void commandBatch() throws Exception {
+        List<CommandResult> results = SUT.commandBatch(List.of("test command", "test  command", "test", "zzzzzzzz", "rootcommand"), TESTUSER).get(1, TimeUnit.SECONDS);
+        assertEquals(5, results.size());
+        assertEquals(CommandResult.Outcome.SUCCESS, results.get(0).outcome());
+        assertEquals(CommandResult.Outcome.SUCCESS, results.get(1).outcome());
+        assertSame(results.get(0).method(), results.get(1).method());
+        assertEquals(CommandResult.Outcome.HELP, results.get(2).outcome());
+        assertEquals(CommandResult.Outcome.NOT_FOUND, results.get(3).outcome());
+        assertEquals(CommandResult.Outcome.SUCCESS, results.get(4).outcome());
+    }
+
+    @Test
+    void registerAndUnregister() throws Exception {
+        Edict edict = Edict.builder(new TestCommandClass()).build();
+        TestCommandCategory root = new TestCommandCategory();
+        assertEquals(CommandResult.Outcome.NOT_FOUND, edict.commandAsync("rootcommand", TESTUSER).get(1, TimeUnit.SECONDS).outcome());
+        assertNotNull(edict.register(root));
+        assertEquals(CommandResult.Outcome.SUCCESS, edict.commandAsync("rootcommand", TESTUSER).get(1, TimeUnit.SECONDS).outcome());
+        assertEquals(CommandResult.Outcome.SUCCESS, edict.commandAsync("test command", TESTUSER).get(1, TimeUnit.SECONDS).outcome());
+        assertTrue(edict.networkString().contains("rootCommand"));
+        assertTrue(edict.unregister(root));
+        assertFalse(edict.unregister(root));
+        assertEquals(CommandResult.Outcome.NOT_FOUND, edict.commandAsync("rootcommand", TESTUSER).get(1, TimeUnit.SECONDS).outcome());
+        assertFalse(edict.networkString().contains("rootCommand"));
+    }
+
+    @Test
+    void parallelBuild() throws Exception {
+        EDictionary settings = new EDictionary();
+        settings.parallelBuild = true;
+        Edict parallel = Edict.builder(new TestCommandClass(), new TestCommandClassContext(), new TestCommandCategory(), new TestDescribedCommandClass())
+                .contextHandler(new TestContextValueContextHandler())
+                .parameterHandler(new TestContextValueParameterHandler())
+                .settings(settings)
+                .build();
+        Edict sequential = Edict.builder(new TestCommandClass(), new TestCommandClassContext(), new TestCommandCategory(), new TestDescribedCommandClass())
+                .contextHandler(new TestContextValueContextHandler())
+                .parameterHandler(new TestContextValueParameterHandler())
+                .build();
+        assertEquals(sequential.networkString(), parallel.networkString());
+        assertEquals(CommandResult.Outcome.SUCCESS, parallel.commandAsync("test command", TESTUSER).get(1, TimeUnit.SECONDS).outcome());
+    }
+
+    @Test
+    void serialOptionPick() throws Exception {
+        EDictionary settings = new EDictionary();
+        settings.optionPickTimeout = 10;
+        settings.optionPickAttempts = 1;
+        Edict serial = Edict.builder(new TestPickCommandClass())
+                .parameterHandler(new TestFlavorParameterHandler())
+                .serialPerUser(true)
+                .settings(settings)
+                .build();
+        TestUser user = new TestUser();
+        CompletableFuture<CommandResult> pick = serial.commandAsync("pick flavor v", user);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (serial.getCompletableCommandsRegistry().getCompletableFor(user) == null) {
+            assertTrue(System.nanoTime() < deadline, "option pick was never requested");
+            Thread.sleep(1);
+        }
+        assertEquals(CommandResult.Outcome.COMPLETED, serial.commandAsync("1", user).get(1, TimeUnit.SECONDS).outcome());
+        assertEquals(CommandResult.Outcome.SUCCESS, pick.get(1, TimeUnit.SECONDS).outcome());
+        assertEquals("picked violet", user.received.get(user.received.size() - 1).string());
+    }
+
     @Test
     void testSuggestionsSimple() {
         suggestionCheck("te", "test");
@@ -0,0 +1,71 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.testconstruct.TestUser;
+import art.arcane.edict.util.EDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    final EDictionary settings = new EDictionary();
+    final AdmissionController SUT = new AdmissionController(settings, Runnable::run);
+
+    @BeforeEach
+    void setUp() {
+        settings.rateLimitBurst = 3;
+        settings.rateLimitPerSecond = 1;
+        settings.rateLimitMaxDelay = 0;
+    }
+
+    @Test
+    void burstThenReject() {
+        TestUser user = new TestUser();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, SUT.admit(user));
+        }
+        assertEquals(AdmissionController.REJECTED, SUT.admit(user));
+    }
+
+    @Test
+    void usersAreIndependent() {
+        TestUser spammer = new TestUser();
+        for (int i = 0; i < 3; i++) {
+            SUT.admit(spammer);
+        }
+        assertEquals(AdmissionController.REJECTED, SUT.admit(spammer));
+        assertEquals(0, SUT.admit(new TestUser()));
+    }
+
+    @Test
+    void delayInsteadOfReject() {
+        settings.rateLimitMaxDelay = 5000;
+        TestUser user = new TestUser();
+        for (int i = 0; i < 3; i++) {
+            SUT.admit(user);
+        }
+        long delay = SUT.admit(user);
+        assertTrue(delay > 0);
+        assertTrue(delay <= 1_000_000_000L);
+    }
+
+    @Test
+    void sweepIdle() {
+        settings.rateLimitPerSecond = 1_000_000_000;
+        for (int i = 0; i < 5000; i++) {
+            SUT.admit(new TestUser());
+        }
+        assertTrue(SUT.size() < 5000);
+    }
+
+    @Test
+    void disabled() {
+        settings.rateLimitBurst = 0;
+        TestUser user = new TestUser();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, SUT.admit(user));
+        }
+        assertEquals(0, SUT.size());
+    }
+}
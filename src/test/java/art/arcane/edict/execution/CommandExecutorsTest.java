@@ -0,0 +1,61 @@
+package art.arcane.edict.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandExecutorsTest {
+
+    @Test
+    void boundedRunsCommands() throws InterruptedException {
+        Executor SUT = CommandExecutors.bounded(2, 4);
+        CountDownLatch ran = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            SUT.execute(ran::countDown);
+        }
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void boundedRejectsBeyondQueueDepth() throws InterruptedException {
+        Executor SUT = CommandExecutors.bounded(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        SUT.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {}
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        SUT.execute(() -> {});
+        assertThrows(RejectedExecutionException.class, () -> SUT.execute(() -> {}));
+        release.countDown();
+    }
+
+    @Test
+    void boundedValidatesArguments() {
+        assertThrows(IllegalArgumentException.class, () -> CommandExecutors.bounded(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> CommandExecutors.bounded(1, 0));
+    }
+
+    @Test
+    void virtualMatchesRuntime() {
+        assertEquals(Runtime.version().feature() >= 21, CommandExecutors.virtualThreadsAvailable());
+        if (!CommandExecutors.virtualThreadsAvailable()) {
+            assertThrows(UnsupportedOperationException.class, () -> CommandExecutors.virtual(1));
+        }
+    }
+
+    @Test
+    void defaultExecutorRuns() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        CommandExecutors.defaultExecutor().execute(ran::countDown);
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+    }
+}
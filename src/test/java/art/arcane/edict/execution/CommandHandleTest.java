@@ -0,0 +1,33 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.Edict;
+import art.arcane.edict.testconstruct.TestSlowCommandClass;
+import art.arcane.edict.testconstruct.TestUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandHandleTest {
+
+    static final Edict SYSTEM = Edict.builder(new TestSlowCommandClass()).build();
+
+    @Test
+    void timesOut() throws Exception {
+        CommandResult result = SYSTEM.commandAsync("slow sleep", new TestUser()).get(2, TimeUnit.SECONDS);
+        assertEquals(CommandResult.Outcome.TIMED_OUT, result.outcome());
+        assertEquals("sleep", result.method().name());
+    }
+
+    @Test
+    void cancels() throws Exception {
+        CommandHandle handle = SYSTEM.commandAsync("slow await", new TestUser());
+        assertTrue(TestSlowCommandClass.started.await(2, TimeUnit.SECONDS));
+        assertTrue(handle.cancel(true));
+        assertTrue(handle.isCancelled());
+        assertThrows(CancellationException.class, handle::join);
+        assertTrue(TestSlowCommandClass.cancelled.await(2, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,101 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.testconstruct.TestUser;
+import art.arcane.edict.util.EDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionServiceTest {
+
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+    final List<String> computed = Collections.synchronizedList(new ArrayList<>());
+    final SuggestionService SUT = new SuggestionService(tasks::add, (input, user) -> {
+        computed.add(input);
+        return List.of(input + "!");
+    }, new EDictionary());
+
+    @Test
+    void newerInputSupersedesPending() {
+        TestUser user = new TestUser();
+        List<String> outputs = new ArrayList<>();
+        SUT.submit("t", user, outputs::addAll);
+        SUT.submit("te", user, outputs::addAll);
+        SUT.submit("tes", user, outputs::addAll);
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+        assertEquals(List.of("tes"), computed);
+        assertEquals(List.of("tes!"), outputs);
+        assertEquals(0, SUT.size());
+    }
+
+    @Test
+    void usersAreIndependent() {
+        List<String> outputs = new ArrayList<>();
+        SUT.submit("a", new TestUser(), outputs::addAll);
+        SUT.submit("b", new TestUser(), outputs::addAll);
+        assertEquals(2, tasks.size());
+        tasks.forEach(Runnable::run);
+        assertEquals(List.of("a!", "b!"), outputs);
+    }
+
+    @Test
+    void staleResultIsDropped() throws InterruptedException {
+        TestUser user = new TestUser();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch superseded = new CountDownLatch(1);
+        List<String> outputs = Collections.synchronizedList(new ArrayList<>());
+        SuggestionService blocking = new SuggestionService(CommandExecutors.bounded(1, 16), (input, u) -> {
+            if (input.equals("old")) {
+                computing.countDown();
+                try {
+                    superseded.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+            }
+            return List.of(input);
+        }, new EDictionary());
+        CountDownLatch done = new CountDownLatch(1);
+        blocking.submit("old", user, outputs::addAll);
+        assertTrue(computing.await(1, TimeUnit.SECONDS));
+        blocking.submit("new", user, s -> {
+            outputs.addAll(s);
+            done.countDown();
+        });
+        superseded.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("new"), outputs);
+    }
+
+    @Test
+    void rejectedOutputsEmpty() {
+        SuggestionService rejecting = new SuggestionService(runnable -> {
+            throw new RejectedExecutionException();
+        }, (input, user) -> List.of(input), new EDictionary());
+        List<String> outputs = new ArrayList<>(List.of("untouched"));
+        rejecting.submit("a", new TestUser(), s -> outputs.clear());
+        assertTrue(outputs.isEmpty());
+        assertEquals(0, rejecting.size());
+    }
+
+    @Test
+    void rejectedDebouncedOutputsEmpty() throws InterruptedException {
+        EDictionary settings = new EDictionary();
+        settings.suggestionDebounce = 10;
+        SuggestionService rejecting = new SuggestionService(runnable -> {
+            throw new RejectedExecutionException();
+        }, (input, user) -> List.of(input), settings);
+        CountDownLatch rejected = new CountDownLatch(1);
+        rejecting.submit("a", new TestUser(), s -> rejected.countDown());
+        assertTrue(rejected.await(1, TimeUnit.SECONDS));
+        assertEquals(0, rejecting.size());
+    }
+}
@@ -0,0 +1,102 @@
+package art.arcane.edict.execution;
+
+import art.arcane.edict.testconstruct.TestUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserLanesTest {
+
+    final UserLanes SUT = new UserLanes(CommandExecutors.bounded(4, 1024));
+
+    @Test
+    void sameUserRunsInOrder() throws InterruptedException {
+        TestUser user = new TestUser();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int finalI = i;
+            SUT.execute(user, () -> {
+                order.add(finalI);
+                done.countDown();
+            }, () -> {});
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void differentUsersRunInParallel() throws InterruptedException {
+        CountDownLatch both = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            SUT.execute(new TestUser(), () -> {
+                both.countDown();
+                try {
+                    if (both.await(1, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException ignored) {}
+            }, () -> {});
+        }
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void lanesAreReclaimed() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            SUT.execute(new TestUser(), done::countDown, () -> {});
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 1000;
+        while (SUT.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, SUT.size());
+    }
+
+    @Test
+    void rejectedLaneCallsBack() {
+        UserLanes rejecting = new UserLanes(runnable -> {
+            throw new RejectedExecutionException();
+        });
+        AtomicBoolean rejected = new AtomicBoolean();
+        rejecting.execute(new TestUser(), () -> {}, () -> rejected.set(true));
+        assertTrue(rejected.get());
+        assertEquals(0, rejecting.size());
+    }
+
+    @Test
+    void errorReleasesLane() throws InterruptedException {
+        UserLanes threads = new UserLanes(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> {});
+            thread.start();
+        });
+        TestUser user = new TestUser();
+        CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            threads.execute(user, () -> {
+                throw new Error("task failed");
+            }, () -> {});
+            threads.execute(user, done::countDown, () -> {});
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 1000;
+        while (threads.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, threads.size());
+    }
+}
@@ -0,0 +1,34 @@
+package art.arcane.edict.handler;
+
+import art.arcane.edict.handler.handlers.IntegerHandler;
+import art.arcane.edict.handler.handlers.StringHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParameterHandlersTest {
+
+    @Test
+    public void getHandlerFor() {
+        IntegerHandler first = new IntegerHandler();
+        ParameterHandlers SUT = new ParameterHandlers(List.of(first));
+        assertSame(first, SUT.getHandlerFor(int.class));
+        assertSame(first, SUT.getHandlerFor(Integer.class));
+        assertThrows(NullPointerException.class, () -> SUT.getHandlerFor(String.class));
+
+        // Adding handlers invalidates resolved types
+        StringHandler string = new StringHandler();
+        SUT.add(string);
+        assertSame(string, SUT.getHandlerFor(String.class));
+        IntegerHandler second = new IntegerHandler();
+        SUT.add(0, second);
+        assertSame(second, SUT.getHandlerFor(int.class));
+        IntegerHandler third = new IntegerHandler();
+        SUT.set(0, third);
+        assertSame(third, SUT.getHandlerFor(int.class));
+        SUT.remove(third);
+        assertSame(first, SUT.getHandlerFor(int.class));
+    }
+}
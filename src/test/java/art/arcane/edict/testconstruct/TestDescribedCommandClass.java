@@ -0,0 +1,18 @@
+package art.arcane.edict.testconstruct;
+
+import art.arcane.edict.api.Command;
+import art.arcane.edict.api.Edicted;
+import art.arcane.edict.api.Param;
+import art.arcane.edict.message.StringMessage;
+
+@Command(description = "a category with a descriptor", name = "described")
+public class TestDescribedCommandClass implements Edicted {
+
+    TestCommandClassToo subcategory;
+
+    @Command(description = "a command that takes an amount")
+    public void take(@Param int amount) {
+        user().send(new StringMessage("took " + amount));
+    }
+
+}
@@ -0,0 +1,7 @@
+package art.arcane.edict.testconstruct;
+
+public record TestFlavor(String name) {
+
+    public static final TestFlavor VANILLA = new TestFlavor("vanilla");
+    public static final TestFlavor VIOLET = new TestFlavor("violet");
+}
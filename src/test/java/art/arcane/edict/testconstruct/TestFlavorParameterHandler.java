@@ -0,0 +1,37 @@
+package art.arcane.edict.testconstruct;
+
+import art.arcane.edict.exception.WhichException;
+import art.arcane.edict.handler.ParameterHandler;
+
+import java.util.List;
+
+/**
+ * Handler that never decides between flavors, so the user always has to pick one.
+ */
+public class TestFlavorParameterHandler implements ParameterHandler<TestFlavor> {
+
+    @Override
+    public String getRandomDefault() {
+        return TestFlavor.VANILLA.name();
+    }
+
+    @Override
+    public boolean supports(Class<?> type) {
+        return TestFlavor.class.equals(type);
+    }
+
+    @Override
+    public String toString(TestFlavor flavor) {
+        return flavor.name();
+    }
+
+    @Override
+    public TestFlavor parse(String in, boolean force, String parameterName) throws WhichException {
+        throw new WhichException(TestFlavor.class, in, getPossibilities());
+    }
+
+    @Override
+    public List<TestFlavor> getPossibilities() {
+        return List.of(TestFlavor.VANILLA, TestFlavor.VIOLET);
+    }
+}
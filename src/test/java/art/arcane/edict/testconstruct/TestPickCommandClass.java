@@ -0,0 +1,17 @@
+package art.arcane.edict.testconstruct;
+
+import art.arcane.edict.api.Command;
+import art.arcane.edict.api.Edicted;
+import art.arcane.edict.api.Param;
+import art.arcane.edict.message.StringMessage;
+
+@Command(name = "pick", description = "commands that ask for an option")
+public class TestPickCommandClass implements Edicted {
+
+    @Command(description = "picks a flavor")
+    public void flavor(
+            @Param(description = "the flavor") TestFlavor flavor
+    ) {
+        user().send(new StringMessage("picked " + flavor.name()));
+    }
+}
@@ -0,0 +1,32 @@
+package art.arcane.edict.testconstruct;
+
+import art.arcane.edict.api.Command;
+import art.arcane.edict.api.Edicted;
+
+import java.util.concurrent.CountDownLatch;
+
+@Command(name = "slow", description = "commands that take long")
+public class TestSlowCommandClass implements Edicted {
+
+    public static final CountDownLatch started = new CountDownLatch(1);
+    public static final CountDownLatch cancelled = new CountDownLatch(1);
+
+    @Command(description = "sleeps past its timeout", timeoutMillis = 50)
+    public void sleep() {
+        waitForInterrupt(new CountDownLatch(1));
+    }
+
+    @Command(description = "waits until cancelled", timeoutMillis = 0)
+    public void await() {
+        started.countDown();
+        waitForInterrupt(cancelled);
+    }
+
+    private static void waitForInterrupt(CountDownLatch onInterrupt) {
+        try {
+            Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+            onInterrupt.countDown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package art.arcane.edict.user;
+
+import art.arcane.edict.message.Message;
+import art.arcane.edict.message.StringMessage;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SystemUserTest {
+
+    final List<String> sent = new ArrayList<>();
+    final AtomicInteger built = new AtomicInteger();
+    final SystemUser SUT = new SystemUser() {
+        @Override
+        public void send(@NotNull Message message) {
+            sent.add(message.string());
+        }
+    };
+
+    @Test
+    void debugDisabledByDefault() {
+        SUT.d(() -> build("debug"));
+        SUT.d(new StringMessage("debug"));
+        SUT.i(() -> new StringMessage("info"));
+        SUT.w(new StringMessage("warning"));
+        assertEquals(List.of("info", "warning"), sent);
+        assertEquals(0, built.get());
+    }
+
+    @Test
+    void levels() {
+        SUT.setLevel(SystemUser.Level.DEBUG);
+        SUT.d(() -> build("debug"));
+        SUT.setLevel(SystemUser.Level.OFF);
+        SUT.w(() -> build("warning"));
+        assertEquals(List.of("debug"), sent);
+        assertEquals(1, built.get());
+        assertFalse(SUT.isEnabled(SystemUser.Level.WARNING));
+    }
+
+    private Message build(String message) {
+        built.incrementAndGet();
+        return new StringMessage(message);
+    }
+}
@@ -4,15 +4,20 @@ import art.arcane.edict.message.CompoundMessage;
 import art.arcane.edict.permission.Permission;
 import art.arcane.edict.user.User;
 import art.arcane.edict.virtual.VCommandable;
-import edu.gatech.gtri.bktree.BkTreeSearcher;
-import edu.gatech.gtri.bktree.MutableBkTree;
 import org.apache.commons.lang3.NotImplementedException;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,6 +42,250 @@ class BKTreeIndexerTest extends BKTreeIndexer {
         assertEquals(3, DAMERAU_LEVENSHTEIN_DISTANCE.distance("adda", "bbb"));
     }
 
+    @Test
+    public void testDLDMatchesMatrix() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            String name = randomString(random);
+            String input = randomString(random);
+            assertEquals(matrixDLD(name, input), DAMERAU_LEVENSHTEIN_DISTANCE.distance(name, input), "'" + name + "' vs '" + input + "'");
+        }
+        String longName = "a".repeat(200) + "b";
+        assertEquals(matrixDLD(longName, "ab"), DAMERAU_LEVENSHTEIN_DISTANCE.distance(longName, "ab"));
+    }
+
+    @Test
+    public void testBoundedDLD() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            String name = randomString(random);
+            String input = randomString(random);
+            int bound = random.nextInt(5);
+            assertEquals(Math.min(matrixDLD(name, input), bound + 1), damerauLevenshteinDistance(name, input, bound), "'" + name + "' vs '" + input + "' within " + bound);
+        }
+    }
+
+    @Test
+    public void testBitParallelDLD() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            String name = randomString(random);
+            String input = randomString(random);
+            assertEquals(matrixDLD(name, input), BIT_PARALLEL_DISTANCE.distance(name, input), "'" + name + "' vs '" + input + "'");
+            int bound = random.nextInt(5);
+            assertEquals(Math.min(matrixDLD(name, input), bound + 1), new BitPattern(name).distance(input, bound), "'" + name + "' vs '" + input + "' within " + bound);
+        }
+        for (int length : new int[]{63, 64, 65, 66, 100}) {
+            for (int n = 0; n < 200; n++) {
+                String name = randomString(random, length);
+                String input = randomString(random, length - 5 + random.nextInt(10));
+                assertEquals(matrixDLD(name, input), BIT_PARALLEL_DISTANCE.distance(name, input), "'" + name + "' vs '" + input + "'");
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedTreeSearch() {
+        Random random = new Random(42);
+        BKTreeIndexer indexer = new BKTreeIndexer();
+        ReferenceNode reference = null;
+        for (int i = 0; i < 200; i++) {
+            VCommandable value = t(randomString(random) + randomString(random));
+            indexer.addAll(List.of(value));
+            if (reference == null) {
+                reference = new ReferenceNode(value);
+            } else {
+                reference.add(value);
+            }
+        }
+        for (int n = 0; n < 500; n++) {
+            String key = randomString(random);
+            double threshold = random.nextDouble();
+            int radius = (int) Math.round(key.length() * (1 - threshold));
+            Set<VCommandable> expected = new HashSet<>();
+            reference.search(t(key), radius, expected);
+            assertEquals(expected, new HashSet<>(indexer.search(key, threshold, (a) -> true, false)), key + " within " + radius);
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        Random random = new Random(42);
+        BKTreeIndexer indexer = new BKTreeIndexer();
+        for (int i = 0; i < 200; i++) {
+            indexer.addAll(List.of(t(randomString(random) + randomString(random))));
+        }
+        for (int n = 0; n < 500; n++) {
+            String key = randomString(random);
+            double threshold = random.nextDouble();
+            int k = 1 + random.nextInt(5);
+            List<Match> all = indexer.searchTopK(key, Integer.MAX_VALUE, threshold, (a) -> true);
+            List<Match> top = indexer.searchTopK(key, k, threshold, (a) -> true);
+            if (all.size() <= k) {
+                assertEquals(all, top, key);
+                continue;
+            }
+            int bound = all.get(k - 1).distance();
+            List<Match> expected = all.stream().filter(m -> m.distance() <= bound).toList();
+            assertEquals(new HashSet<>(expected), new HashSet<>(top), key + " top " + k);
+            assertEquals(expected.stream().map(Match::distance).toList(), top.stream().map(Match::distance).toList(), key + " top " + k);
+        }
+    }
+
+    @Test
+    public void testTopKTies() {
+        addAll(List.of(t("abb"), t("acc")));
+        List<Match> best = searchTopK("abx", 1, 0, (a) -> true);
+        assertEquals(List.of("abb", "bbb"), best.stream().map(m -> m.element().name()).sorted().toList());
+        assertTrue(best.stream().allMatch(m -> m.distance() == 1));
+        assertEquals(List.of(new Match(index.search("aaa", 0, 1, (a) -> true).get(0).element(), 0)), searchTopK("aaa", 1, 0, (a) -> true));
+        assertEquals(List.of("aaa"), searchTopK("aaa", 2, 0, (a) -> !a.name().equals("bbb")).stream().limit(1).map(m -> m.element().name()).toList());
+        assertEquals(0, searchTopK("aaa", 0, 0, (a) -> true).size());
+    }
+
+    @Test
+    public void testPermitted() {
+        Random random = new Random(42);
+        List<Permission> permissions = List.of(new TestPermission("a"), new TestPermission("b"), new TestPermission("c"));
+        BKTreeIndexer indexer = new BKTreeIndexer();
+        for (int i = 0; i < 200; i++) {
+            indexer.addAll(List.of(new PermittedIndexable(randomString(random) + randomString(random), permissions.get(random.nextInt(permissions.size())))));
+        }
+        for (int n = 0; n < 500; n++) {
+            String key = randomString(random);
+            double threshold = random.nextDouble();
+            int k = 1 + random.nextInt(5);
+            Permission allowed = permissions.get(random.nextInt(permissions.size()));
+            List<Permission> checked = new ArrayList<>();
+            List<Match> permitted = indexer.searchPermitted(key, k, threshold, permission -> {
+                checked.add(permission);
+                return permission == allowed;
+            });
+            assertEquals(indexer.searchTopK(key, k, threshold, (a) -> a.permission() == allowed), permitted, key);
+            assertEquals(new HashSet<>(checked).size(), checked.size(), key);
+            assertTrue(permitted.stream().allMatch(m -> m.element().permission() == allowed), key);
+        }
+        assertEquals(0, indexer.searchPermitted("ab", 1, 0, permission -> false).size());
+    }
+
+    @Test
+    public void testCache() {
+        Random random = new Random(42);
+        List<Permission> permissions = List.of(new TestPermission("a"), new TestPermission("b"));
+        ResolutionCache cache = new ResolutionCache(64);
+        BKTreeIndexer cached = new BKTreeIndexer(new EDictionary(), cache);
+        BKTreeIndexer uncached = new BKTreeIndexer();
+        for (int i = 0; i < 200; i++) {
+            VCommandable value = new PermittedIndexable(randomString(random) + randomString(random) + i, permissions.get(random.nextInt(permissions.size())));
+            cached.add(value);
+            uncached.add(value);
+        }
+        for (int n = 0; n < 500; n++) {
+            String key = randomString(random, 1 + random.nextInt(3));
+            int k = 1 + random.nextInt(3);
+            Permission allowed = permissions.get(random.nextInt(permissions.size()));
+            List<Match> expected = uncached.index().searchPermitted(key, (int) Math.round(key.length() * 0.5), Integer.MAX_VALUE, permission -> permission == allowed);
+            if (expected.size() > k) {
+                int bound = expected.get(k - 1).distance();
+                expected = expected.stream().filter(m -> m.distance() <= bound).toList();
+            }
+            List<Match> actual = cached.searchPermitted(key, k, 0.5, permission -> permission == allowed);
+            assertEquals(new HashSet<>(expected), new HashSet<>(actual), key + " top " + k);
+            assertEquals(expected.stream().map(Match::distance).toList(), actual.stream().map(Match::distance).toList(), key + " top " + k);
+        }
+        assertTrue(cache.hits() > 0);
+        assertTrue(cache.size() <= 64);
+        long misses = cache.misses();
+        cached.searchPermitted("zz", 1, 0, permission -> true);
+        cached.searchPermitted("zz", 1, 0, permission -> true);
+        assertEquals(misses + 1, cache.misses());
+        cached.add(t("zz"));
+        assertEquals(0, cache.size());
+        assertEquals(0, new ResolutionCache(0).size());
+    }
+
+    @Test
+    public void testStrategy() {
+        assertInstanceOf(LinearIndex.class, index);
+        assertEquals("linear", index.name());
+        Random random = new Random(42);
+        List<VCommandable> values = new ArrayList<>();
+        for (int i = 0; i < IndexStrategy.LINEAR_MAX_NAMES; i++) {
+            values.add(t(randomString(random) + randomString(random) + i));
+        }
+        addAll(values);
+        assertInstanceOf(FrozenBKTree.class, index);
+        assertEquals("bk-tree", index.name());
+        removeAll(values);
+        assertInstanceOf(LinearIndex.class, index);
+        assertEquals(3, size());
+    }
+
+    @Test
+    public void testLinear() {
+        Random random = new Random(42);
+        List<VCommandable> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(t(randomString(random) + randomString(random) + i));
+        }
+        LinearIndex linear = new LinearIndex(values);
+        for (int n = 0; n < 500; n++) {
+            String key = randomString(random);
+            int radius = random.nextInt(4);
+            Set<VCommandable> expected = new HashSet<>();
+            for (VCommandable value : values) {
+                if (DLD_EDICT_ADAPTER.distance(value, t(key)) <= radius) {
+                    expected.add(value);
+                }
+            }
+            List<Match> matches = linear.search(key, radius, Integer.MAX_VALUE, (a) -> true);
+            assertEquals(expected, matches.stream().map(Match::element).collect(Collectors.toSet()), key + " within " + radius);
+            int k = 1 + random.nextInt(3);
+            List<Match> top = linear.search(key, radius, k, (a) -> true);
+            assertEquals(matches.stream().limit(k).map(Match::distance).toList(), top.stream().limit(k).map(Match::distance).toList(), key + " top " + k);
+        }
+    }
+
+    @Test
+    public void testDeletion() {
+        Random random = new Random(42);
+        List<VCommandable> values = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            values.add(t(randomString(random) + randomString(random) + i, randomString(random)));
+        }
+        LinearIndex linear = new LinearIndex(values);
+        DeletionIndex deletion = DeletionIndex.of(values, Long.MAX_VALUE);
+        assertNotNull(deletion);
+        assertEquals(DeletionIndex.MAX_DISTANCE, deletion.maxDistance());
+        for (int n = 0; n < 500; n++) {
+            String key = randomString(random) + randomString(random);
+            int radius = random.nextInt(DeletionIndex.MAX_DISTANCE + 1);
+            int k = random.nextBoolean() ? Integer.MAX_VALUE : 1 + random.nextInt(3);
+            assertEquals(linear.search(key, radius, k, (a) -> true), deletion.search(key, radius, k, (a) -> true), key + " within " + radius);
+        }
+        assertEquals(values.size(), deletion.search(" ", 0, Integer.MAX_VALUE, (a) -> true).size());
+    }
+
+    @Test
+    public void testDeletionBudget() {
+        List<VCommandable> values = List.of(t("abcdef"), t("abcxyz"));
+        assertNull(DeletionIndex.of(values, 0));
+        DeletionIndex small = DeletionIndex.of(values, 16);
+        assertNotNull(small);
+        assertEquals(1, small.maxDistance());
+        EDictionary settings = new EDictionary();
+        settings.deletionIndexNames = IndexStrategy.LINEAR_MAX_NAMES + 1;
+        BKTreeIndexer indexer = new BKTreeIndexer(settings);
+        Random random = new Random(42);
+        for (int i = 0; i <= IndexStrategy.LINEAR_MAX_NAMES; i++) {
+            indexer.add(t(randomString(random) + i));
+        }
+        assertInstanceOf(DeletionIndex.class, indexer.index());
+        settings.deletionIndexBudget = 0;
+        indexer.add(t("abc"));
+        assertInstanceOf(FrozenBKTree.class, indexer.index());
+    }
+
     @Test
     public void testDLDAdapter() {
         assertEquals(0, DLD_EDICT_ADAPTER.distance(t("aaa"), t("aaa")));
@@ -54,6 +303,15 @@ class BKTreeIndexerTest extends BKTreeIndexer {
         assertEquals("ccc", search("xtc", 0, (a) -> true).get(0).name());
     }
 
+    @Test
+    public void testFrozen() {
+        assertEquals(3, size());
+        VCommandable ddd = t("ddd");
+        addAll(List.of(ddd, ddd));
+        assertEquals(4, size());
+        assertEquals(0, new BKTreeIndexer().search("a", 0, (a) -> true).size());
+    }
+
     @Test
     public void voidTestTreeEmpty() {
         assertEquals(0, search("a", 1, (a) -> true).size());
@@ -62,8 +320,173 @@ class BKTreeIndexerTest extends BKTreeIndexer {
         assertEquals("aaa", search("aaa", 1, (a) -> true).get(0).name());
     }
 
+    @Test
+    public void testExact() {
+        addAll(List.of(t("daa", "x")));
+        assertEquals(List.of("aaa"), search("aaa", 0, (a) -> true).stream().map(VCommandable::name).toList());
+        assertEquals(List.of("daa"), search("x", 0, (a) -> true).stream().map(VCommandable::name).toList());
+        assertEquals(List.of("daa"), search("aaa", 0, (a) -> !a.name().equals("aaa")).stream().map(VCommandable::name).toList());
+        assertEquals(2, search("aaa", 1, (a) -> true, false).size());
+    }
+
+    @Test
+    public void testPrefixTrie() {
+        VCommandable ab = t("ab", "abc");
+        VCommandable abc = t("abc");
+        VCommandable abd = t("abd", "x");
+        PrefixTrie trie = new PrefixTrie(new VCommandable[]{abd, abc, ab});
+        assertEquals(List.of(abc, ab), trie.exact("abc"));
+        assertNull(trie.exact("a"));
+        assertNull(trie.exact("abcd"));
+        assertEquals(List.of(ab, abc, abd), trie.prefixed("ab"));
+        assertEquals(List.of(abc, ab), trie.prefixed("abc"));
+        assertEquals(3, trie.prefixed("").size());
+        assertEquals(List.of(), trie.prefixed("b"));
+        List<Integer> prefixes = new ArrayList<>();
+        trie.forEachPrefixOf("abcd", prefixes::add);
+        assertEquals(List.of(2, 1, 2), prefixes);
+    }
+
+    @Test
+    public void testCompletions() {
+        Permission permission = new TestPermission("a");
+        BKTreeIndexer indexer = new BKTreeIndexer();
+        for (String name : List.of("aaa", "bbb", "ccc", "aab", "aabc")) {
+            indexer.add(new PermittedIndexable(name, permission));
+        }
+        assertEquals(List.of("aaa", "aab", "aabc"), indexer.searchCompletions("aa", 3, 0, p -> true).stream().map(m -> m.element().name()).toList());
+        assertEquals(List.of("aab"), indexer.searchCompletions("aab", 1, 0, p -> true).stream().map(m -> m.element().name()).toList());
+        assertEquals(3, indexer.searchCompletions("aa", 1, 0, p -> true).size());
+        assertEquals(indexer.searchPermitted("dad", 1, 0, p -> true), indexer.searchCompletions("dad", 1, 0, p -> true));
+        assertEquals(0, indexer.searchCompletions("aa", 1, 0, p -> false).size());
+    }
+
+    /**
+     * Unbounded BK-tree, as reference for the bounded search.
+     */
+    private record ReferenceNode(@NotNull VCommandable element, @NotNull Map<Integer, ReferenceNode> children) {
+
+        ReferenceNode(@NotNull VCommandable element) {
+            this(element, new HashMap<>());
+        }
+
+        void add(@NotNull VCommandable value) {
+            if (element.equals(value)) {
+                return;
+            }
+            ReferenceNode child = children.get(DLD_EDICT_ADAPTER.distance(element, value));
+            if (child == null) {
+                children.put(DLD_EDICT_ADAPTER.distance(element, value), new ReferenceNode(value));
+            } else {
+                child.add(value);
+            }
+        }
+
+        void search(@NotNull VCommandable key, int radius, @NotNull Set<VCommandable> matches) {
+            int distance = DLD_EDICT_ADAPTER.distance(element, key);
+            if (distance <= radius) {
+                matches.add(element);
+            }
+            children.forEach((edge, child) -> {
+                if (Math.abs(edge - distance) <= radius) {
+                    child.search(key, radius, matches);
+                }
+            });
+        }
+    }
+
+    private static @NotNull String randomString(@NotNull Random random) {
+        return randomString(random, 1 + random.nextInt(8));
+    }
+
+    private static @NotNull String randomString(@NotNull Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The original full-matrix implementation, as reference for the rolling-row one.
+     */
+    private static int matrixDLD(@NotNull String name, @NotNull String input) {
+        int[][] map = new int[input.length()][name.length()];
+        for (int i = 0; i < input.length(); i++) {
+            map[i][0] = i;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            map[0][i] = i;
+        }
+        for (int i = 1; i < input.length(); i++) {
+            for (int j = 1; j < name.length(); j++) {
+                int cost = input.charAt(i) == name.charAt(j) ? 0 : 1;
+                map[i][j] = Math.min(Math.min(map[i-1][j] + 1, map[i][j-1] + 1), map[i-1][j-1] + cost);
+                if (i > 1 && j > 1 && input.charAt(i) == name.charAt(j-1) && input.charAt(i-1) == name.charAt(j)) {
+                    map[i][j] = Math.min(map[i][j], map[i-2][j-2] + 1);
+                }
+            }
+        }
+        return map[input.length() - 1][name.length() - 1];
+    }
+
     @Contract(value = "_, _ -> new", pure = true)
     private @NotNull VCommandable t(@NotNull String name, @NotNull String... aliases) {
         return new BKTreeIndexable(name, aliases);
     }
-}
\ No newline at end of file
+
+    /**
+     * Permission for tests.
+     * @param name the name
+     */
+    private record TestPermission(@NotNull String name) implements Permission {
+
+        @Override
+        public Permission getParent() {
+            return null;
+        }
+    }
+
+    /**
+     * Indexable with a permission.
+     * @param name the name
+     * @param permission the permission
+     */
+    private record PermittedIndexable(@NotNull String name, @NotNull Permission permission) implements VCommandable {
+
+        @Override
+        public @NotNull String @NotNull [] aliases() {
+            return new String[0];
+        }
+
+        @Override
+        public @NotNull List<String> names() {
+            return List.of(name);
+        }
+
+        @Override
+        public @NotNull VCommandable parent() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull CompoundMessage getHelpFor(@NotNull User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean run(@NotNull List<String> input, @NotNull User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public @NotNull List<String> suggest(@NotNull List<String> input, @NotNull User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void networkString(@NotNull StringBuilder builder, @NotNull String indent, @NotNull String currentIndent) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
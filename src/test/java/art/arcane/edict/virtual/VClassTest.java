@@ -2,7 +2,12 @@ package art.arcane.edict.virtual;
 
 import art.arcane.edict.Edict;
 import art.arcane.edict.EdictTest;
+import art.arcane.edict.api.Command;
+import art.arcane.edict.api.CommandDescriptor;
+import art.arcane.edict.api.Param;
+import art.arcane.edict.testconstruct.TestCommandCategory;
 import art.arcane.edict.testconstruct.TestCommandClass;
+import art.arcane.edict.testconstruct.TestDescribedCommandClass;
 import art.arcane.edict.testconstruct.TestUser;
 import org.junit.jupiter.api.Test;
 
@@ -47,4 +52,59 @@ class VClassTest {
         assert SUT != null;
         assertTrue(SUT.getAliases().contains("alias"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void names() {
+        assert SUT != null;
+        assertEquals("test", SUT.names().get(0));
+        assertTrue(SUT.hasName("alias"));
+        assertEquals(SUT.names().size(), SUT.allNames().size());
+        assertThrows(UnsupportedOperationException.class, () -> SUT.names().add("other"));
+        assertEquals(List.of("name", "alias"), VCommandable.nameTable("name", new String[]{"", " alias ", "name", "alias"}));
+    }
+
+    @Test
+    void addAndRemoveChild() {
+        assert SUT != null;
+        VCommandable child = SUT.addChild(new TestCommandCategory());
+        assertNotNull(child);
+        assertTrue(SUT.children().contains(child));
+        assertEquals(List.of(child), SUT.indexer().search("rootCommand", SYSTEM.getSettings().matchThreshold, (vCommandable -> true)));
+        assertTrue(SUT.removeChild(child));
+        assertFalse(SUT.children().contains(child));
+        assertFalse(SUT.indexer().search("rootCommand", SYSTEM.getSettings().matchThreshold, (vCommandable -> true)).contains(child));
+        assertEquals(SUT.children().size(), SUT.indexer().size());
+    }
+
+    @Test
+    void fromDescriptor() throws ReflectiveOperationException {
+        CommandDescriptor descriptor = CommandDescriptor.of(TestDescribedCommandClass.class);
+        assertNotNull(descriptor);
+        assertEquals(List.of("amount"), List.of(descriptor.parameterNames()[0]));
+        VClass described = (VClass) VClass.fromInstance(new TestDescribedCommandClass(), null, SYSTEM);
+        assertNotNull(described);
+        assertEquals(List.of("take", "subcategory"), described.children().stream().map(VCommandable::name).toList());
+
+        // Tests are compiled without -parameters, so only the descriptor knows the source name
+        assertFalse(TestDescribedCommandClass.class.getDeclaredMethod("take", int.class).getParameters()[0].isNamePresent());
+        assertEquals("amount", ((VMethod) described.children().get(0)).params().get(0).name());
+    }
+
+    @Test
+    void fromScan() {
+        assertNull(CommandDescriptor.of(Undescribed.class));
+        VClass undescribed = (VClass) VClass.fromInstance(new Undescribed(), null, SYSTEM);
+        assertNotNull(undescribed);
+        assertEquals(List.of("run"), undescribed.children().stream().map(VCommandable::name).toList());
+    }
+
+    /**
+     * Private, so the annotation processor cannot describe it.
+     */
+    @Command(description = "a category without a descriptor")
+    private static class Undescribed {
+
+        @Command(description = "a command that is found by scanning")
+        void run(@Param(name = "times") int times) {}
+    }
+}
@@ -0,0 +1,61 @@
+package art.arcane.edict.virtual;
+
+import art.arcane.edict.Edict;
+import art.arcane.edict.EdictTest;
+import art.arcane.edict.api.Command;
+import art.arcane.edict.api.Param;
+import art.arcane.edict.execution.CommandResult;
+import art.arcane.edict.testconstruct.TestUser;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VMethodTest {
+
+    final Edict SYSTEM = EdictTest.SUT;
+
+    @Test
+    void invoker() throws Throwable {
+        VMethod SUT = (VMethod) VMethod.fromInstance(Repeater.class.getDeclaredMethod("repeat", int.class, String.class), new Repeater(), SYSTEM);
+
+        // Parameters with a default value are sorted first, so values are passed in a different order than declared
+        assertEquals(List.of("word", "count"), SUT.params().stream().map(VParam::name).toList());
+        Object[] values = {"ab", 2};
+        assertNull(SUT.verifyParameters(values));
+        CommandResult.Builder result = new CommandResult.Builder("repeat");
+        assertTrue(SUT.invoke(values, new TestUser(), result));
+        assertEquals("abab", result.build().returnValue());
+        assertNotNull(SUT.verifyParameters(new Object[]{"ab", null}));
+        assertNotNull(SUT.verifyParameters(new Object[]{2, "ab"}));
+        assertNotNull(SUT.verifyParameters(new Object[]{"ab"}));
+        assertThrows(UnsupportedOperationException.class, () -> SUT.params().clear());
+    }
+
+    @Test
+    void paramsAddedAfterConstruction() throws Throwable {
+        Method method = Repeater.class.getDeclaredMethod("shout", String.class);
+        Command annotation = method.getDeclaredAnnotation(Command.class);
+        VMethod SUT = new VMethod(annotation, null, method, new ArrayList<>(), SYSTEM.makePermission(null, annotation.permission()), SYSTEM);
+        SUT.params().addAll(VParam.paramsFromMethod(SUT, method, SYSTEM));
+        CommandResult.Builder result = new CommandResult.Builder("shout");
+        assertTrue(SUT.invoke(new Object[]{"hi"}, new TestUser(), result));
+        assertEquals("HI", result.build().returnValue());
+    }
+
+    static class Repeater {
+
+        @Command(description = "shout a word")
+        static String shout(@Param(name = "word") String word) {
+            return word.toUpperCase();
+        }
+
+        @Command(description = "repeat a word")
+        String repeat(@Param(name = "count") int count, @Param(name = "word", defaultValue = "hi") String word) {
+            return word.repeat(count);
+        }
+    }
+}